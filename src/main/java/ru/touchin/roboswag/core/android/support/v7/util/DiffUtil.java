@@ -18,11 +18,16 @@ package ru.touchin.roboswag.core.android.support.v7.util;
 
 import android.support.annotation.Nullable;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * DiffUtil is a utility class that can calculate the difference between two lists and output a
@@ -45,6 +50,8 @@ import java.util.List;
  * <p>If move detection is enabled, it takes an additional O(N^2) time where N is the total number of
  * added and removed items. If your lists are already sorted by the same constraint (e.g. a created
  * timestamp for a list of posts), you can disable move detection to improve performance.
+ * If your {@link Callback} provides item keys ({@link Callback#getOldItemKey(int)} and
+ * {@link Callback#getNewItemKey(int)}), move detection uses hash lookups and takes O(N log N) time.
  *
  * <p>The actual runtime of the algorithm significantly depends on the number of changes in the list
  * and the cost of your comparison methods. Below are some average run times for reference:
@@ -59,6 +66,15 @@ import java.util.List;
  * <li>1000 items and 200 modifications without moves: 13.54 ms, median: 13.36 ms
  * </ul>
  *
+ * <p>Very large lists could be processed on several threads with
+ * {@link #calculateDiff(Callback, boolean, Workspace, Executor, int)}. The result is exactly the
+ * same as the result of sequential calculation.
+ *
+ * <p>To bound the time of calculation for lists which are very different, set a budget of
+ * edit distance or a deadline with {@link Workspace#setBudget(int, long)}. Ranges which are not
+ * solved within the budget are reported as removal of all their old items and insertion of all
+ * their new items, so the result is still correct but not minimal.
+ *
  * <p>Due to implementation constraints, the max size of the list can be 2^26.
  */
 @SuppressWarnings({"PMD", "checkstyle:all"})
@@ -68,6 +84,9 @@ public class DiffUtil {
         // utility class, no instance.
     }
 
+    // ranges with less total items are not worth to be processed on other thread
+    private static final int PARALLEL_MIN_RANGE_SIZE = 4096;
+
     private static final Comparator<Snake> SNAKE_COMPARATOR = new Comparator<Snake>() {
         @Override
         public int compare(Snake o1, Snake o2) {
@@ -103,30 +122,49 @@ public class DiffUtil {
      * old list into the new list.
      */
     public static DiffResult calculateDiff(Callback cb, boolean detectMoves) {
+        return calculateDiff(cb, detectMoves, new Workspace());
+    }
+
+    /**
+     * Calculates the list of update operations that can covert one list into the other one
+     * re-using buffers of the given {@link Workspace}.
+     * <p>
+     * The returned DiffResult keeps references to the workspace buffers, so it is valid only
+     * until the next calculation with the same workspace. Dispatch its updates before that.
+     *
+     * @param cb          The callback that acts as a gateway to the backing list data
+     * @param detectMoves True if DiffUtil should try to detect moved items, false otherwise.
+     * @param workspace   Buffers to re-use between calculations
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     */
+    public static DiffResult calculateDiff(Callback cb, boolean detectMoves, Workspace workspace) {
         final int oldSize = cb.getOldListSize();
         final int newSize = cb.getNewListSize();
 
-        final List<Snake> snakes = new ArrayList<>();
+        workspace.recycleSnakes();
+        final List<Snake> snakes = workspace.snakes;
 
         // instead of a recursive implementation, we keep our own stack to avoid potential stack
         // overflow exceptions
-        final List<Range> stack = new ArrayList<>();
+        final List<Range> stack = workspace.stack;
 
-        stack.add(new Range(0, oldSize, 0, newSize));
+        stack.add(workspace.obtainRange(0, oldSize, 0, newSize));
 
         final int max = oldSize + newSize + Math.abs(oldSize - newSize);
         // allocate forward and backward k-lines. K lines are diagonal lines in the matrix. (see the
         // paper for details)
         // These arrays lines keep the max reachable position for each k-line.
-        final int[] forward = new int[max * 2];
-        final int[] backward = new int[max * 2];
+        workspace.ensureCapacity(max * 2);
+        final int[] forward = workspace.forward;
+        final int[] backward = workspace.backward;
 
         // We pool the ranges to avoid allocations for each recursive call.
-        final List<Range> rangePool = new ArrayList<>();
+        final List<Range> rangePool = workspace.rangePool;
         while (!stack.isEmpty()) {
             final Range range = stack.remove(stack.size() - 1);
             final Snake snake = diffPartial(cb, range.oldListStart, range.oldListEnd,
-                    range.newListStart, range.newListEnd, forward, backward, max);
+                    range.newListStart, range.newListEnd, forward, backward, max, workspace);
             if (snake != null) {
                 if (snake.size > 0) {
                     snakes.add(snake);
@@ -170,6 +208,9 @@ public class DiffUtil {
                     right.newListStart = snake.y + snake.size;
                 }
                 stack.add(right);
+                if (snake.size == 0) {
+                    workspace.snakePool.add(snake);
+                }
             } else {
                 rangePool.add(range);
             }
@@ -178,12 +219,53 @@ public class DiffUtil {
         // sort snakes
         Collections.sort(snakes, SNAKE_COMPARATOR);
 
-        return new DiffResult(cb, snakes, forward, backward, detectMoves);
+        return new DiffResult(cb, snakes, forward, backward, detectMoves, workspace);
+
+    }
+
+    /**
+     * Calculates the list of update operations that can covert one list into the other one
+     * using several threads.
+     * <p>
+     * After the middle snake of a range is found, its left and right sub-ranges are independent
+     * so large sub-ranges are handed over to the executor while the calling thread keeps
+     * processing ranges too. As the middle snake of each range does not depend on the order of
+     * processing and snakes are sorted at the end, the result is exactly the same as the result
+     * of {@link #calculateDiff(Callback, boolean, Workspace)}.
+     * <p>
+     * Callback methods are called from several threads, so lists should not be changed during
+     * calculation. Small lists are processed on the calling thread only.
+     *
+     * @param cb          The callback that acts as a gateway to the backing list data
+     * @param detectMoves True if DiffUtil should try to detect moved items, false otherwise.
+     * @param workspace   Buffers to re-use between calculations
+     * @param executor    Executor to process sub-ranges on
+     * @param parallelism Max count of sub-ranges processed by executor at the same time
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     */
+    public static DiffResult calculateDiff(Callback cb, boolean detectMoves, Workspace workspace,
+                                           Executor executor, int parallelism) {
+        final int oldSize = cb.getOldListSize();
+        final int newSize = cb.getNewListSize();
+        if (parallelism <= 0 || oldSize + newSize < PARALLEL_MIN_RANGE_SIZE * 2) {
+            return calculateDiff(cb, detectMoves, workspace);
+        }
+
+        workspace.recycleSnakes();
+        final int max = oldSize + newSize + Math.abs(oldSize - newSize);
+        workspace.ensureCapacity(max * 2);
+        new ParallelCalculation(cb, workspace, executor, parallelism)
+                .run(new Range(0, oldSize, 0, newSize));
+        Collections.sort(workspace.snakes, SNAKE_COMPARATOR);
 
+        return new DiffResult(cb, workspace.snakes, workspace.forward, workspace.backward,
+                detectMoves, workspace);
     }
 
     private static Snake diffPartial(Callback cb, int startOld, int endOld,
-                                     int startNew, int endNew, int[] forward, int[] backward, int kOffset) {
+                                     int startNew, int endNew, int[] forward, int[] backward, int kOffset,
+                                     Workspace workspace) {
         final int oldSize = endOld - startOld;
         final int newSize = endNew - startNew;
 
@@ -197,6 +279,12 @@ public class DiffUtil {
         Arrays.fill(backward, kOffset - dLimit - 1 + delta, kOffset + dLimit + 1 + delta, oldSize);
         final boolean checkInFwd = delta % 2 != 0;
         for (int d = 0; d <= dLimit; d++) {
+            // edit distance of the range is at least 2 * d - 1 at this step
+            if (2 * d - 1 > workspace.maxEditDistance || workspace.hasDeadline
+                    && System.nanoTime() - workspace.deadlineNanoTime > 0) {
+                // out of budget, the range will be reported as removal and insertion
+                return null;
+            }
             for (int k = -d; k <= d; k += 2) {
                 // find forward path
                 // we can reach k from k - 1 or k + 1. Check which one is further in the graph
@@ -220,7 +308,7 @@ public class DiffUtil {
                 forward[kOffset + k] = x;
                 if (checkInFwd && k >= delta - d + 1 && k <= delta + d - 1) {
                     if (forward[kOffset + k] >= backward[kOffset + k]) {
-                        Snake outSnake = new Snake();
+                        Snake outSnake = workspace.obtainSnake();
                         outSnake.x = backward[kOffset + k];
                         outSnake.y = outSnake.x - k;
                         outSnake.size = forward[kOffset + k] - backward[kOffset + k];
@@ -255,7 +343,7 @@ public class DiffUtil {
                 backward[kOffset + backwardK] = x;
                 if (!checkInFwd && k + delta >= -d && k + delta <= d) {
                     if (forward[kOffset + backwardK] >= backward[kOffset + backwardK]) {
-                        Snake outSnake = new Snake();
+                        Snake outSnake = workspace.obtainSnake();
                         outSnake.x = backward[kOffset + backwardK];
                         outSnake.y = outSnake.x - backwardK;
                         outSnake.size =
@@ -333,6 +421,392 @@ public class DiffUtil {
         public Object getChangePayload(int oldItemPosition, int newItemPosition) {
             return null;
         }
+
+        /**
+         * Returns key of the item in the old list which is used to speed up move detection.
+         * <p>
+         * Keys should be consistent with {@link #areItemsTheSame(int, int)}: it should return
+         * {@code true} if and only if keys of items are equal. If keys are provided, move
+         * detection looks up matching items in hash tables instead of scanning added and removed
+         * items, with exactly the same result.
+         * <p>
+         * Default implementation returns {@code null} which means that keys are not supported.
+         *
+         * @param oldItemPosition The position of the item in the old list
+         * @return Key of the item or {@code null} if keys are not supported.
+         */
+        @Nullable
+        public Object getOldItemKey(int oldItemPosition) {
+            return null;
+        }
+
+        /**
+         * Returns key of the item in the new list which is used to speed up move detection.
+         * See {@link #getOldItemKey(int)} for details.
+         * <p>
+         * Default implementation returns {@code null} which means that keys are not supported.
+         *
+         * @param newItemPosition The position of the item in the new list
+         * @return Key of the item or {@code null} if keys are not supported.
+         */
+        @Nullable
+        public Object getNewItemKey(int newItemPosition) {
+            return null;
+        }
+    }
+
+    /**
+     * Buffers which could be re-used between {@link #calculateDiff(Callback, boolean, Workspace)}
+     * calls to avoid allocation of k-lines arrays, snakes and ranges for every calculation.
+     * <p>
+     * Workspace is not thread-safe, so it should be confined to one thread (e.g. by
+     * {@link ThreadLocal}) or used under a lock.
+     */
+    public static class Workspace {
+
+        private int[] forward = new int[0];
+
+        private int[] backward = new int[0];
+
+        private int[] keyPositions = new int[0];
+
+        private final List<Snake> snakes = new ArrayList<>();
+
+        private final List<Snake> snakePool = new ArrayList<>();
+
+        private final List<Range> stack = new ArrayList<>();
+
+        private final List<Range> rangePool = new ArrayList<>();
+
+        private final List<PostponedUpdate> postponedUpdates = new ArrayList<>();
+
+        private final List<PostponedUpdate> postponedUpdatePool = new ArrayList<>();
+
+        private int maxEditDistance = Integer.MAX_VALUE;
+
+        private boolean hasDeadline;
+
+        private long deadlineNanoTime;
+
+        /**
+         * Limits following calculations with this workspace. If edit distance between some
+         * ranges of lists is greater than the max one or the deadline has passed, such ranges
+         * are reported as removal and insertion of all their items.
+         * <p>
+         * Lists with edit distance less or equal to the max one are calculated exactly.
+         *
+         * @param maxEditDistance  Max edit distance of a range to calculate exactly
+         * @param deadlineNanoTime {@link System#nanoTime()} value after which calculation stops
+         */
+        public void setBudget(int maxEditDistance, long deadlineNanoTime) {
+            this.maxEditDistance = maxEditDistance;
+            this.hasDeadline = true;
+            this.deadlineNanoTime = deadlineNanoTime;
+        }
+
+        /**
+         * Limits following calculations with this workspace by edit distance only.
+         *
+         * @param maxEditDistance Max edit distance of a range to calculate exactly
+         * @see #setBudget(int, long)
+         */
+        public void setBudget(int maxEditDistance) {
+            this.maxEditDistance = maxEditDistance;
+            this.hasDeadline = false;
+        }
+
+        /**
+         * Removes limits of calculations set by {@link #setBudget(int, long)}.
+         */
+        public void clearBudget() {
+            setBudget(Integer.MAX_VALUE);
+        }
+
+        void copyBudget(Workspace workspace) {
+            maxEditDistance = workspace.maxEditDistance;
+            hasDeadline = workspace.hasDeadline;
+            deadlineNanoTime = workspace.deadlineNanoTime;
+        }
+
+        /**
+         * Releases buffers which have grown larger than the given capacity, so a workspace kept
+         * for a long time does not hold memory of the largest calculation forever.
+         *
+         * @param maxCapacity Max count of items in a buffer that is kept
+         */
+        public void trim(int maxCapacity) {
+            if (forward.length > maxCapacity) {
+                forward = new int[0];
+                backward = new int[0];
+            }
+            if (keyPositions.length > maxCapacity) {
+                keyPositions = new int[0];
+            }
+            trimPool(snakePool, maxCapacity);
+            trimPool(rangePool, maxCapacity);
+            trimPool(postponedUpdatePool, maxCapacity);
+        }
+
+        private static void trimPool(List<?> pool, int maxCapacity) {
+            if (pool.size() > maxCapacity) {
+                pool.subList(maxCapacity, pool.size()).clear();
+            }
+        }
+
+        void ensureCapacity(int size) {
+            if (forward.length < size) {
+                forward = new int[size];
+                backward = new int[size];
+            }
+        }
+
+        int[] obtainKeyPositions(int size) {
+            if (keyPositions.length < size) {
+                keyPositions = new int[size];
+            }
+            return keyPositions;
+        }
+
+        void recycleSnakes() {
+            snakePool.addAll(snakes);
+            snakes.clear();
+        }
+
+        Snake obtainSnake() {
+            return snakePool.isEmpty() ? new Snake() : snakePool.remove(snakePool.size() - 1);
+        }
+
+        Range obtainRange(int oldListStart, int oldListEnd, int newListStart, int newListEnd) {
+            final Range range = rangePool.isEmpty() ? new Range() : rangePool.remove(rangePool.size() - 1);
+            range.oldListStart = oldListStart;
+            range.oldListEnd = oldListEnd;
+            range.newListStart = newListStart;
+            range.newListEnd = newListEnd;
+            return range;
+        }
+
+        PostponedUpdate obtainPostponedUpdate(int posInOwnerList, int currentPos, boolean removal) {
+            final PostponedUpdate update = postponedUpdatePool.isEmpty()
+                    ? new PostponedUpdate(posInOwnerList, currentPos, removal)
+                    : postponedUpdatePool.remove(postponedUpdatePool.size() - 1);
+            update.posInOwnerList = posInOwnerList;
+            update.currentPos = currentPos;
+            update.removal = removal;
+            return update;
+        }
+
+    }
+
+    /**
+     * State of {@link #calculateDiff(Callback, boolean, Workspace, Executor, int)} call shared
+     * between threads. Ranges which are waiting to be processed are kept in a queue which is
+     * drained by executor workers and by the calling thread, so calculation is finished even if
+     * executor never runs submitted workers.
+     */
+    private static class ParallelCalculation {
+
+        private final Callback mCallback;
+
+        private final Workspace mCallerWorkspace;
+
+        private final Executor mExecutor;
+
+        private final int mParallelism;
+
+        // guarded by this
+        private final ArrayDeque<Range> mQueue = new ArrayDeque<>();
+
+        // guarded by this, count of ranges which are queued or being processed
+        private int mPendingRanges;
+
+        // guarded by this
+        private int mRunningWorkers;
+
+        // guarded by this
+        private Throwable mError;
+
+        ParallelCalculation(Callback callback, Workspace callerWorkspace, Executor executor,
+                            int parallelism) {
+            mCallback = callback;
+            mCallerWorkspace = callerWorkspace;
+            mExecutor = executor;
+            mParallelism = parallelism;
+        }
+
+        void run(Range root) {
+            synchronized (this) {
+                mQueue.add(root);
+                mPendingRanges = 1;
+            }
+            boolean interrupted = false;
+            while (true) {
+                drainQueue(mCallerWorkspace);
+                synchronized (this) {
+                    while (mPendingRanges > 0 && mQueue.isEmpty()) {
+                        try {
+                            wait();
+                        } catch (InterruptedException exception) {
+                            // workers are still writing snakes so we can't leave before they finish
+                            interrupted = true;
+                        }
+                    }
+                    if (mPendingRanges == 0) {
+                        break;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            final Throwable error;
+            synchronized (this) {
+                error = mError;
+            }
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error instanceof Error) {
+                throw (Error) error;
+            }
+        }
+
+        private void drainQueue(Workspace workspace) {
+            while (true) {
+                final Range range;
+                final boolean failed;
+                synchronized (this) {
+                    range = mQueue.poll();
+                    failed = mError != null;
+                }
+                if (range == null) {
+                    return;
+                }
+                try {
+                    if (!failed) {
+                        process(range, workspace);
+                    }
+                } catch (Throwable throwable) {
+                    synchronized (this) {
+                        if (mError == null) {
+                            mError = throwable;
+                        }
+                    }
+                } finally {
+                    synchronized (this) {
+                        mPendingRanges--;
+                        if (mPendingRanges == 0) {
+                            notifyAll();
+                        }
+                    }
+                }
+            }
+        }
+
+        private void runWorker() {
+            final Workspace workspace = new Workspace();
+            workspace.copyBudget(mCallerWorkspace);
+            while (true) {
+                drainQueue(workspace);
+                synchronized (this) {
+                    if (mQueue.isEmpty()) {
+                        mRunningWorkers--;
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void enqueue(int oldListStart, int oldListEnd, int newListStart, int newListEnd) {
+            final boolean startWorker;
+            synchronized (this) {
+                mQueue.add(new Range(oldListStart, oldListEnd, newListStart, newListEnd));
+                mPendingRanges++;
+                notifyAll();
+                startWorker = mRunningWorkers < mParallelism;
+                if (startWorker) {
+                    mRunningWorkers++;
+                }
+            }
+            if (startWorker) {
+                try {
+                    mExecutor.execute(this::runWorker);
+                } catch (RejectedExecutionException exception) {
+                    // range will be processed by the calling thread
+                    synchronized (this) {
+                        mRunningWorkers--;
+                    }
+                }
+            }
+        }
+
+        private void process(Range root, Workspace workspace) {
+            final int oldSize = root.oldListEnd - root.oldListStart;
+            final int newSize = root.newListEnd - root.newListStart;
+            // k-lines offset only should be big enough for the root range
+            final int max = oldSize + newSize + Math.abs(oldSize - newSize);
+            workspace.ensureCapacity(max * 2);
+            final List<Snake> snakes = new ArrayList<>();
+            final List<Range> stack = workspace.stack;
+            stack.add(root);
+            while (!stack.isEmpty()) {
+                final Range range = stack.remove(stack.size() - 1);
+                final Snake snake = diffPartial(mCallback, range.oldListStart, range.oldListEnd,
+                        range.newListStart, range.newListEnd, workspace.forward,
+                        workspace.backward, max, workspace);
+                if (snake == null) {
+                    workspace.rangePool.add(range);
+                    continue;
+                }
+                if (snake.size > 0) {
+                    snakes.add(snake);
+                }
+                snake.x += range.oldListStart;
+                snake.y += range.newListStart;
+
+                final int leftOldEnd;
+                final int leftNewEnd;
+                if (snake.reverse) {
+                    leftOldEnd = snake.x;
+                    leftNewEnd = snake.y;
+                } else if (snake.removal) {
+                    leftOldEnd = snake.x - 1;
+                    leftNewEnd = snake.y;
+                } else {
+                    leftOldEnd = snake.x;
+                    leftNewEnd = snake.y - 1;
+                }
+                final int rightOldStart;
+                final int rightNewStart;
+                if (snake.reverse && snake.removal) {
+                    rightOldStart = snake.x + snake.size + 1;
+                    rightNewStart = snake.y + snake.size;
+                } else if (snake.reverse) {
+                    rightOldStart = snake.x + snake.size;
+                    rightNewStart = snake.y + snake.size + 1;
+                } else {
+                    rightOldStart = snake.x + snake.size;
+                    rightNewStart = snake.y + snake.size;
+                }
+                if (snake.size == 0) {
+                    workspace.snakePool.add(snake);
+                }
+
+                if (leftOldEnd - range.oldListStart + leftNewEnd - range.newListStart
+                        >= PARALLEL_MIN_RANGE_SIZE) {
+                    enqueue(range.oldListStart, leftOldEnd, range.newListStart, leftNewEnd);
+                } else {
+                    stack.add(workspace.obtainRange(range.oldListStart, leftOldEnd,
+                            range.newListStart, leftNewEnd));
+                }
+                range.oldListStart = rightOldStart;
+                range.newListStart = rightNewStart;
+                stack.add(range);
+            }
+            synchronized (this) {
+                mCallerWorkspace.snakes.addAll(snakes);
+            }
+        }
+
     }
 
     /**
@@ -449,25 +923,40 @@ public class DiffUtil {
 
         private final boolean mDetectMoves;
 
+        // Buffers of the calculation. They are re-used while dispatching updates.
+        private final Workspace mWorkspace;
+
+        // Positions of old and new items that are not on snakes grouped by item keys. They are
+        // used to find moved items if the callback provides item keys.
+        private KeyIndex mOldKeyIndex;
+
+        private KeyIndex mNewKeyIndex;
+
         /**
          * @param callback        The callback that was used to calculate the diff
          * @param snakes          The list of Myers' snakes
          * @param oldItemStatuses An int[] that can be re-purposed to keep metadata
          * @param newItemStatuses An int[] that can be re-purposed to keep metadata
          * @param detectMoves     True if this DiffResult will try to detect moved items
+         * @param workspace       The workspace that was used to calculate the diff
          */
         DiffResult(Callback callback, List<Snake> snakes, int[] oldItemStatuses,
-                   int[] newItemStatuses, boolean detectMoves) {
+                   int[] newItemStatuses, boolean detectMoves, Workspace workspace) {
             mSnakes = snakes;
             mOldItemStatuses = oldItemStatuses;
             mNewItemStatuses = newItemStatuses;
-            Arrays.fill(mOldItemStatuses, 0);
-            Arrays.fill(mNewItemStatuses, 0);
             mCallback = callback;
             mOldListSize = callback.getOldListSize();
             mNewListSize = callback.getNewListSize();
+            // only first items of re-used arrays are used as statuses
+            Arrays.fill(mOldItemStatuses, 0, mOldListSize, 0);
+            Arrays.fill(mNewItemStatuses, 0, mNewListSize, 0);
             mDetectMoves = detectMoves;
+            mWorkspace = workspace;
             addRootSnake();
+            if (mDetectMoves) {
+                buildKeyIndexes();
+            }
             findMatchingItems();
         }
 
@@ -478,7 +967,7 @@ public class DiffUtil {
         private void addRootSnake() {
             Snake firstSnake = mSnakes.isEmpty() ? null : mSnakes.get(0);
             if (firstSnake == null || firstSnake.x != 0 || firstSnake.y != 0) {
-                Snake root = new Snake();
+                Snake root = mWorkspace.obtainSnake();
                 root.x = 0;
                 root.y = 0;
                 root.removal = false;
@@ -488,6 +977,52 @@ public class DiffUtil {
             }
         }
 
+        /**
+         * Groups positions of items that are not on snakes by their keys. If the callback does
+         * not provide keys, indexes are not built and matching items are found by scanning.
+         */
+        private void buildKeyIndexes() {
+            // positions are collected into one buffer of the workspace: old ones are copied
+            // into the old index before new ones are collected
+            final int[] positions = mWorkspace.obtainKeyPositions(Math.max(mOldListSize, mNewListSize));
+            final int oldCount = collectPositionsOutOfSnakes(positions, true);
+            if (oldCount == 0 || mCallback.getOldItemKey(positions[0]) == null) {
+                // checking first key before building of the index to not allocate anything
+                // if the callback does not provide keys
+                return;
+            }
+            final KeyIndex oldKeyIndex = KeyIndex.build(mCallback, positions, oldCount, true);
+            if (oldKeyIndex == null) {
+                return;
+            }
+            final int newCount = collectPositionsOutOfSnakes(positions, false);
+            final KeyIndex newKeyIndex = newCount > 0
+                    ? KeyIndex.build(mCallback, positions, newCount, false) : null;
+            if (newKeyIndex != null) {
+                mOldKeyIndex = oldKeyIndex;
+                mNewKeyIndex = newKeyIndex;
+            }
+        }
+
+        /**
+         * @return Count of sorted positions of old or new items which are not on snakes written
+         * to the given array.
+         */
+        private int collectPositionsOutOfSnakes(int[] positions, boolean oldList) {
+            int count = 0;
+            for (int i = 0; i < mSnakes.size(); i++) {
+                final Snake snake = mSnakes.get(i);
+                final int start = (oldList ? snake.x : snake.y) + snake.size;
+                final int end = i + 1 < mSnakes.size()
+                        ? (oldList ? mSnakes.get(i + 1).x : mSnakes.get(i + 1).y)
+                        : (oldList ? mOldListSize : mNewListSize);
+                for (int pos = start; pos < end; pos++) {
+                    positions[count++] = pos;
+                }
+            }
+            return count;
+        }
+
         /**
          * This method traverses each addition / removal and tries to match it to a previous
          * removal / addition. This is how we detect move operations.
@@ -561,6 +1096,9 @@ public class DiffUtil {
          */
         private boolean findMatchingItem(final int x, final int y, final int snakeIndex,
                                          final boolean removal) {
+            if (mOldKeyIndex != null) {
+                return findMatchingItemByKey(x, y, removal);
+            }
             final int myItemPos;
             int curX;
             int curY;
@@ -610,6 +1148,36 @@ public class DiffUtil {
             return false;
         }
 
+        /**
+         * Same as {@link #findMatchingItem(int, int, int, boolean)} but looks up the nearest
+         * item with the same key in key indexes instead of scanning. Items on snakes are not in
+         * the indexes, so the found item is the same one the scan finds.
+         */
+        private boolean findMatchingItemByKey(final int x, final int y, final boolean removal) {
+            if (removal) {
+                final int myItemPos = y - 1;
+                final int pos = mOldKeyIndex.findLastBefore(mCallback.getNewItemKey(myItemPos), x);
+                if (pos < 0) {
+                    return false;
+                }
+                final boolean theSame = mCallback.areContentsTheSame(pos, myItemPos);
+                final int changeFlag = theSame ? FLAG_MOVED_NOT_CHANGED : FLAG_MOVED_CHANGED;
+                mNewItemStatuses[myItemPos] = (pos << FLAG_OFFSET) | FLAG_IGNORE;
+                mOldItemStatuses[pos] = (myItemPos << FLAG_OFFSET) | changeFlag;
+            } else {
+                final int myItemPos = x - 1;
+                final int pos = mNewKeyIndex.findLastBefore(mCallback.getOldItemKey(myItemPos), y);
+                if (pos < 0) {
+                    return false;
+                }
+                final boolean theSame = mCallback.areContentsTheSame(myItemPos, pos);
+                final int changeFlag = theSame ? FLAG_MOVED_NOT_CHANGED : FLAG_MOVED_CHANGED;
+                mOldItemStatuses[myItemPos] = (pos << FLAG_OFFSET) | FLAG_IGNORE;
+                mNewItemStatuses[pos] = (myItemPos << FLAG_OFFSET) | changeFlag;
+            }
+            return true;
+        }
+
         /**
          * Dispatches update operations to the given Callback.
          * <p>
@@ -631,7 +1199,8 @@ public class DiffUtil {
             }
             // These are add/remove ops that are converted to moves. We track their positions until
             // their respective update operations are processed.
-            final List<PostponedUpdate> postponedUpdates = new ArrayList<>();
+            final List<PostponedUpdate> postponedUpdates = mWorkspace.postponedUpdates;
+            postponedUpdates.clear();
             int posOld = mOldListSize;
             int posNew = mNewListSize;
             for (int snakeIndex = mSnakes.size() - 1; snakeIndex >= 0; snakeIndex--) {
@@ -657,14 +1226,17 @@ public class DiffUtil {
                 posNew = snake.y;
             }
             batchingCallback.dispatchLastEvent();
+            mWorkspace.postponedUpdatePool.addAll(postponedUpdates);
+            postponedUpdates.clear();
         }
 
-        private static PostponedUpdate removePostponedUpdate(List<PostponedUpdate> updates,
-                                                             int pos, boolean removal) {
+        private PostponedUpdate removePostponedUpdate(List<PostponedUpdate> updates,
+                                                      int pos, boolean removal) {
             for (int i = updates.size() - 1; i >= 0; i--) {
                 final PostponedUpdate update = updates.get(i);
                 if (update.posInOwnerList == pos && update.removal == removal) {
                     updates.remove(i);
+                    mWorkspace.postponedUpdatePool.add(update);
                     for (int j = i; j < updates.size(); j++) {
                         // offset other ops since they swapped positions
                         updates.get(j).currentPos += removal ? 1 : -1;
@@ -705,7 +1277,7 @@ public class DiffUtil {
                         }
                         break;
                     case FLAG_IGNORE: // ignoring this
-                        postponedUpdates.add(new PostponedUpdate(globalIndex + i, start, false));
+                        postponedUpdates.add(mWorkspace.obtainPostponedUpdate(globalIndex + i, start, false));
                         break;
                     default:
                         throw new IllegalStateException(
@@ -746,7 +1318,7 @@ public class DiffUtil {
                         }
                         break;
                     case FLAG_IGNORE: // ignoring this
-                        postponedUpdates.add(new PostponedUpdate(globalIndex + i, start + i, true));
+                        postponedUpdates.add(mWorkspace.obtainPostponedUpdate(globalIndex + i, start + i, true));
                         break;
                     default:
                         throw new IllegalStateException(
@@ -757,6 +1329,84 @@ public class DiffUtil {
         }
     }
 
+    /**
+     * Positions of items grouped by item keys. Positions of every key are sorted ascending.
+     */
+    private static class KeyIndex {
+
+        private final Map<Object, Integer> mGroupsByKey;
+
+        // positions of group i are positions[groupStarts[i]] .. positions[groupStarts[i + 1] - 1]
+        private final int[] mGroupStarts;
+
+        private final int[] mPositions;
+
+        private KeyIndex(Map<Object, Integer> groupsByKey, int[] groupStarts, int[] positions) {
+            mGroupsByKey = groupsByKey;
+            mGroupStarts = groupStarts;
+            mPositions = positions;
+        }
+
+        /**
+         * @return Index of given sorted positions or null if the callback does not provide keys.
+         */
+        static KeyIndex build(Callback callback, int[] positions, int count, boolean oldList) {
+            final Map<Object, Integer> groupsByKey = new HashMap<>();
+            final int[] groups = new int[count];
+            for (int i = 0; i < count; i++) {
+                final Object key = oldList ? callback.getOldItemKey(positions[i])
+                        : callback.getNewItemKey(positions[i]);
+                if (key == null) {
+                    return null;
+                }
+                Integer group = groupsByKey.get(key);
+                if (group == null) {
+                    group = groupsByKey.size();
+                    groupsByKey.put(key, group);
+                }
+                groups[i] = group;
+            }
+            final int[] groupStarts = new int[groupsByKey.size() + 1];
+            for (int i = 0; i < count; i++) {
+                groupStarts[groups[i] + 1]++;
+            }
+            for (int i = 0; i < groupsByKey.size(); i++) {
+                groupStarts[i + 1] += groupStarts[i];
+            }
+            final int[] filled = Arrays.copyOf(groupStarts, groupsByKey.size());
+            final int[] groupedPositions = new int[count];
+            for (int i = 0; i < count; i++) {
+                groupedPositions[filled[groups[i]]++] = positions[i];
+            }
+            return new KeyIndex(groupsByKey, groupStarts, groupedPositions);
+        }
+
+        /**
+         * @return The greatest position of item with the given key which is less than the given
+         * position or -1 if there is no such item.
+         */
+        int findLastBefore(Object key, int position) {
+            final Integer group = key != null ? mGroupsByKey.get(key) : null;
+            if (group == null) {
+                return -1;
+            }
+            int low = mGroupStarts[group];
+            int high = mGroupStarts[group + 1] - 1;
+            int result = -1;
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                if (mPositions[middle] < position) {
+                    result = mPositions[middle];
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return result;
+        }
+
+    }
+
     /**
      * Represents an update that we skipped because it was a move.
      * <p>
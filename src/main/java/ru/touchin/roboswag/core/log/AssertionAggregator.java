@@ -0,0 +1,143 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.log;
+
+import android.support.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+/**
+ * Aggregator of repeated assertions which is used when application is not crashing on assertions (see {@link Lc#isCrashOnAssertions()}).
+ * Assertions are identified by fingerprint (place of code or message) and only first one of each is logged.
+ * If there are too many different fingerprints then assertions with new ones are counted together as other assertions.
+ * Repeats are counted and logged as summary once per summary interval after first repeat. Counts could be attached to crash reports by {@link #getCounts()}.
+ */
+public class AssertionAggregator {
+
+    // fingerprints could contain dynamic messages so count of them is limited
+    private static final int MAX_FINGERPRINTS_COUNT = 1024;
+    // assertions with new fingerprints after the limit is reached are counted together
+    private static final String OTHER_ASSERTIONS_FINGERPRINT = "<other assertions>";
+    private static final LogSite LOG_SITE = LogSite.forClass(AssertionAggregator.class);
+
+    @NonNull
+    private final ConcurrentMap<String, AssertionCounter> counters = new ConcurrentHashMap<>();
+    private final long summaryIntervalMillis;
+    @NonNull
+    private final Scheduler.Worker summaryWorker = Schedulers.computation().createWorker();
+    @NonNull
+    private final AtomicBoolean summaryScheduled = new AtomicBoolean();
+
+    /**
+     * Creates aggregator of assertions.
+     *
+     * @param summaryIntervalMillis Time between summaries of repeats of assertions.
+     */
+    public AssertionAggregator(final long summaryIntervalMillis) {
+        this.summaryIntervalMillis = summaryIntervalMillis;
+    }
+
+    /**
+     * Calls on each assertion and returns if it should be logged.
+     *
+     * @param group       {@link LcGroup} where assertion came from;
+     * @param fingerprint String which is identifying assertion (e.g. place of code);
+     * @return True if assertion appears first time and should be logged.
+     */
+    public boolean onAssertion(@NonNull final LcGroup group, @NonNull final String fingerprint) {
+        AssertionCounter counter = counters.get(fingerprint);
+        if (counter == null) {
+            final String countedFingerprint = counters.size() >= MAX_FINGERPRINTS_COUNT ? OTHER_ASSERTIONS_FINGERPRINT : fingerprint;
+            counter = new AssertionCounter(group);
+            final AssertionCounter previousCounter = counters.putIfAbsent(countedFingerprint, counter);
+            if (previousCounter == null) {
+                return true;
+            }
+            counter = previousCounter;
+        }
+        counter.totalCount.incrementAndGet();
+        counter.unreportedCount.incrementAndGet();
+        if (summaryScheduled.compareAndSet(false, true)) {
+            summaryWorker.schedule(this::logSummaries, summaryIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return false;
+    }
+
+    private void logSummaries() {
+        // resetting flag before reading counts so repeats which are counted after reading schedule next summary
+        summaryScheduled.set(false);
+        for (final Map.Entry<String, AssertionCounter> entry : counters.entrySet()) {
+            final AssertionCounter counter = entry.getValue();
+            final int unreportedCount = counter.unreportedCount.getAndSet(0);
+            if (unreportedCount > 0) {
+                // summaries are logged if assertions are logged regardless of level of group
+                counter.group.logBypassingFilters(LcLevel.ERROR, LOG_SITE, "Assertion " + entry.getKey() + " repeated "
+                        + unreportedCount + " times (" + counter.totalCount.get() + " times in total)");
+            }
+        }
+    }
+
+    /**
+     * Returns counts of assertions by their fingerprints.
+     *
+     * @return Snapshot of counts.
+     */
+    @NonNull
+    public Map<String, Integer> getCounts() {
+        final Map<String, Integer> result = new HashMap<>();
+        for (final Map.Entry<String, AssertionCounter> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().totalCount.get());
+        }
+        return result;
+    }
+
+    /**
+     * Forgets all counted assertions.
+     */
+    public void reset() {
+        counters.clear();
+    }
+
+    private static class AssertionCounter {
+
+        // group of first assertion to log summaries to
+        @NonNull
+        private final LcGroup group;
+        @NonNull
+        private final AtomicInteger totalCount = new AtomicInteger(1);
+        @NonNull
+        private final AtomicInteger unreportedCount = new AtomicInteger();
+
+        public AssertionCounter(@NonNull final LcGroup group) {
+            this.group = group;
+        }
+
+    }
+
+}
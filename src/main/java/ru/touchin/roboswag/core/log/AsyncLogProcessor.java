@@ -0,0 +1,307 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.log;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link LogProcessor} which is passing log messages to wrapped processor on separate thread
+ * so logging (e.g. from UI thread) is not slowing down calling thread.
+ * Messages are placed into lock-free ring buffer of preallocated events which is drained by single consumer thread.
+ * If buffer is full then {@link OverflowPolicy} is applied. Assertions are never dropped
+ * except messages logged by wrapped processor itself as waiting for free space on consumer thread would never end.
+ * Consumer thread is stopped by {@link #close()}.
+ */
+public class AsyncLogProcessor extends LogProcessor {
+
+    // every N-th message is kept while buffer is full in SAMPLE policy
+    private static final int SAMPLING_RATE = 16;
+    private static final long CONSUMER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    @NonNull
+    private final LogProcessor logProcessor;
+    @NonNull
+    private final OverflowPolicy overflowPolicy;
+    @NonNull
+    private final Slot[] slots;
+    // sequence of each slot: equals position when slot is free to write and position + 1 when it is published to read
+    @NonNull
+    private final AtomicLongArray sequences;
+    private final int mask;
+    @NonNull
+    private final AtomicLong writePosition = new AtomicLong();
+    // accessed only by consumer thread
+    private long readPosition;
+    @NonNull
+    private final AtomicInteger overflowsCount = new AtomicInteger();
+    @NonNull
+    private final AtomicInteger droppedCount = new AtomicInteger();
+    @NonNull
+    private final Thread consumerThread;
+    private volatile boolean consumerParked;
+    private volatile boolean closed;
+    // guarded by this, after consumer thread exited messages are drained by producers themselves
+    private boolean consumerExited;
+    // guarded by this, prevents reentrant draining if wrapped processor logs something while draining
+    private boolean draining;
+
+    /**
+     * Creates processor which is passing messages to other processor asynchronously.
+     *
+     * @param logProcessor   Processor to pass messages to on consumer thread;
+     * @param bufferCapacity Count of messages that could wait for processing. It is rounded up to power of two;
+     * @param overflowPolicy Policy to apply when buffer is full.
+     */
+    public AsyncLogProcessor(@NonNull final LogProcessor logProcessor, final int bufferCapacity,
+                             @NonNull final OverflowPolicy overflowPolicy) {
+        super(logProcessor.getMinLogLevel());
+        this.logProcessor = logProcessor;
+        this.overflowPolicy = overflowPolicy;
+        final int capacity = Integer.highestOneBit(Math.max(2, bufferCapacity) * 2 - 1);
+        mask = capacity - 1;
+        slots = new Slot[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+        consumerThread = new Thread(this::consumeEvents, "AsyncLogProcessor");
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    /**
+     * Returns count of messages dropped because of buffer overflow.
+     *
+     * @return Count of dropped messages.
+     */
+    public int getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Processes all messages which are already in buffer and stops consumer thread.
+     * Messages logged after closing are processed synchronously on calling thread.
+     */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(consumerThread);
+        if (Thread.currentThread() == consumerThread) {
+            return;
+        }
+        boolean interrupted = false;
+        while (consumerThread.isAlive()) {
+            try {
+                consumerThread.join();
+            } catch (final InterruptedException exception) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void processLogMessage(@NonNull final LcGroup group, @NonNull final LcLevel level,
+                                  @NonNull final String tag, @NonNull final String message, @Nullable final Throwable throwable) {
+        publish(group, level, tag, null, throwable, System.currentTimeMillis(), Thread.currentThread(), null, message);
+    }
+
+    @Override
+    public void processRawMessage(@NonNull final LcGroup group, @NonNull final LcLevel level, @NonNull final String tag,
+                                  @Nullable final String message, @Nullable final Throwable throwable, @Nullable final Object[] fields) {
+        // raw info is copied into preallocated slot and formatting of message is deferred to consumer thread
+        publish(group, level, tag, message, throwable, System.currentTimeMillis(), Thread.currentThread(), fields, null);
+    }
+
+    @Override
+    public void processLogEvent(@NonNull final LogEvent event) {
+        publish(event.getGroup(), event.getLevel(), event.getTag(), event.getMessage(), event.getThrowable(),
+                event.getTimeMillis(), event.getThread(), event.getFields(), null);
+    }
+
+    @Override
+    public void processStructured(@NonNull final LogEvent event) {
+        processLogEvent(event);
+    }
+
+    private void publish(@NonNull final LcGroup group, @NonNull final LcLevel level, @NonNull final String tag,
+                         @Nullable final String message, @Nullable final Throwable throwable,
+                         final long timeMillis, @NonNull final Thread thread, @Nullable final Object[] fields,
+                         @Nullable final String fullMessage) {
+        if (tryPublish(group, level, tag, message, throwable, timeMillis, thread, fields, fullMessage)) {
+            drainIfClosed();
+            return;
+        }
+        if (Thread.currentThread() == consumerThread || Thread.holdsLock(this)) {
+            // message is logged by wrapped processor so there would be no free space until it returns
+            droppedCount.incrementAndGet();
+            return;
+        }
+        final OverflowPolicy policy = level == LcLevel.ASSERT ? OverflowPolicy.BLOCK : overflowPolicy;
+        if (policy == OverflowPolicy.DROP
+                || (policy == OverflowPolicy.SAMPLE && overflowsCount.incrementAndGet() % SAMPLING_RATE != 0)) {
+            droppedCount.incrementAndGet();
+            return;
+        }
+        while (!tryPublish(group, level, tag, message, throwable, timeMillis, thread, fields, fullMessage)) {
+            drainIfClosed();
+            LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+        }
+        drainIfClosed();
+    }
+
+    private void drainIfClosed() {
+        if (!closed) {
+            return;
+        }
+        synchronized (this) {
+            // if consumer thread is not exited yet then it will drain published message itself
+            if (consumerExited) {
+                drainPublished();
+            }
+        }
+    }
+
+    private boolean tryPublish(@NonNull final LcGroup group, @NonNull final LcLevel level, @NonNull final String tag,
+                               @Nullable final String message, @Nullable final Throwable throwable,
+                               final long timeMillis, @NonNull final Thread thread, @Nullable final Object[] fields,
+                               @Nullable final String fullMessage) {
+        while (true) {
+            final long position = writePosition.get();
+            final int index = (int) (position & mask);
+            final long difference = sequences.get(index) - position;
+            if (difference < 0) {
+                // slot is not consumed yet so buffer is full
+                return false;
+            }
+            if (difference == 0 && writePosition.compareAndSet(position, position + 1)) {
+                slots[index].event.set(group, level, tag, message, throwable, timeMillis, thread, fields);
+                slots[index].fullMessage = fullMessage;
+                // volatile store is needed to not reorder publishing with reading of consumerParked and miss wakeup
+                sequences.set(index, position + 1);
+                if (consumerParked) {
+                    LockSupport.unpark(consumerThread);
+                }
+                return true;
+            }
+        }
+    }
+
+    private void consumeEvents() {
+        while (true) {
+            final int index = (int) (readPosition & mask);
+            if (sequences.get(index) != readPosition + 1) {
+                if (closed) {
+                    synchronized (this) {
+                        drainPublished();
+                        consumerExited = true;
+                    }
+                    return;
+                }
+                consumerParked = true;
+                if (sequences.get(index) != readPosition + 1 && !closed) {
+                    LockSupport.parkNanos(this, CONSUMER_PARK_NANOS);
+                }
+                consumerParked = false;
+                continue;
+            }
+            processSlot(index);
+        }
+    }
+
+    // called under lock only
+    private void drainPublished() {
+        if (draining) {
+            return;
+        }
+        draining = true;
+        try {
+            while (sequences.get((int) (readPosition & mask)) == readPosition + 1) {
+                processSlot((int) (readPosition & mask));
+            }
+        } finally {
+            draining = false;
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    //AvoidCatchingThrowable: consumer thread should not die because of wrapped processor
+    private void processSlot(final int index) {
+        final Slot slot = slots[index];
+        try {
+            if (slot.fullMessage != null) {
+                logProcessor.processLogMessage(slot.event.getGroup(), slot.event.getLevel(), slot.event.getTag(),
+                        slot.fullMessage, slot.event.getThrowable());
+            } else if (slot.event.getFieldsCount() > 0) {
+                logProcessor.processStructured(slot.event);
+            } else {
+                logProcessor.processLogEvent(slot.event);
+            }
+        } catch (final Throwable throwable) {
+            Log.e(AsyncLogProcessor.class.getSimpleName(), "Processing of log message failed", throwable);
+        }
+        slot.event.clear();
+        slot.fullMessage = null;
+        sequences.lazySet(index, readPosition + mask + 1);
+        readPosition++;
+    }
+
+    /**
+     * Policy of {@link AsyncLogProcessor} to apply when buffer of messages is full.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Message is dropped.
+         */
+        DROP,
+        /**
+         * Calling thread is waiting until there is free space in buffer.
+         */
+        BLOCK,
+        /**
+         * Only every 16th message is kept (calling thread is waiting for free space for it) and others are dropped.
+         */
+        SAMPLE
+
+    }
+
+    private static class Slot {
+
+        @NonNull
+        private final LogEvent event = new LogEvent();
+        // already formatted message passed directly to processLogMessage()
+        @Nullable
+        private String fullMessage;
+
+    }
+
+}
@@ -0,0 +1,383 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.log;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link LogProcessor} which is writing log messages into files to get logs from user devices (e.g. to attach them to bug report).
+ * Messages are appended as compact text lines to memory-mapped segment file so writing is not waiting for disk (there is no fsync at all).
+ * Segments are rotated by size and age, closed segments are compressed by gzip in background and only last segments are kept.
+ * As gzip members could be concatenated, last logs are exported quickly by {@link #exportLastLogs(File, long)} without recompression.
+ * Records which are larger than segment are split between several segments.
+ * Processor should be closed by {@link #close()} when it is not needed anymore.
+ */
+public class FileLogProcessor extends LogProcessor {
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+    private static final String SEGMENT_EXTENSION = ".log";
+    private static final String COMPRESSED_SEGMENT_EXTENSION = ".log.gz";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    private static final int COPY_BUFFER_SIZE = 8 * 1024;
+
+    @NonNull
+    private final File directory;
+    private final int segmentSize;
+    private final long maxSegmentAgeMillis;
+    private final int maxSegmentsCount;
+    @NonNull
+    private final ExecutorService compressionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "FileLogProcessor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // fields of current segment are guarded by this
+    @Nullable
+    private File segmentFile;
+    @Nullable
+    private MappedByteBuffer segmentBuffer;
+    private long segmentStartTimeMillis;
+    private boolean closed;
+
+    /**
+     * Creates processor which is writing log messages into files.
+     *
+     * @param minLogLevel         Minimum level of messages to write;
+     * @param directory           Directory to keep segment files in. It shouldn't contain other files;
+     * @param segmentSize         Max size of segment file in bytes;
+     * @param maxSegmentAgeMillis Max time to write into one segment file;
+     * @param maxSegmentsCount    Max count of segment files to keep (including current one).
+     */
+    public FileLogProcessor(@NonNull final LcLevel minLogLevel, @NonNull final File directory,
+                            final int segmentSize, final long maxSegmentAgeMillis, final int maxSegmentsCount) {
+        super(minLogLevel);
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegmentAgeMillis = maxSegmentAgeMillis;
+        this.maxSegmentsCount = Math.max(1, maxSegmentsCount);
+        // segments left from previous launches are closed already
+        compressionExecutor.execute(this::compressClosedSegments);
+    }
+
+    @Override
+    public void processLogMessage(@NonNull final LcGroup group, @NonNull final LcLevel level,
+                                  @NonNull final String tag, @NonNull final String message, @Nullable final Throwable throwable) {
+        write(createRecord(message, level, tag, throwable));
+    }
+
+    @Override
+    public void processLogEvent(@NonNull final LogEvent event) {
+        final StringBuilder builder = new StringBuilder();
+        event.appendFullMessage(builder);
+        write(createRecord(builder, event.getLevel(), event.getTag(), event.getThrowable()));
+    }
+
+    @NonNull
+    private byte[] createRecord(@NonNull final CharSequence message, @NonNull final LcLevel level,
+                                @NonNull final String tag, @Nullable final Throwable throwable) {
+        final StringBuilder builder = new StringBuilder(message.length() + tag.length() + 4);
+        builder.append(level.name().charAt(0)).append(' ').append(tag).append(' ').append(message);
+        if (throwable != null) {
+            final StringWriter stackTrace = new StringWriter();
+            throwable.printStackTrace(new PrintWriter(stackTrace));
+            builder.append('\n').append(stackTrace);
+        }
+        builder.append('\n');
+        // zero byte is marking end of written part of segment
+        return builder.toString().replace("\0", "").getBytes(CHARSET);
+    }
+
+    private void write(@NonNull final byte[] record) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            final long currentTime = System.currentTimeMillis();
+            boolean segmentOpened = false;
+            int offset = 0;
+            while (offset < record.length) {
+                if ((!segmentOpened && isSegmentOutdated(currentTime)) || isSegmentFull(record.length - offset)) {
+                    openSegment(currentTime);
+                    segmentOpened = true;
+                }
+                if (segmentBuffer == null) {
+                    return;
+                }
+                final int count = Math.min(record.length - offset, segmentBuffer.remaining());
+                segmentBuffer.put(record, offset, count);
+                offset += count;
+            }
+        }
+    }
+
+    // should be called under lock of this
+    private boolean isSegmentOutdated(final long currentTime) {
+        return segmentBuffer == null || currentTime - segmentStartTimeMillis >= maxSegmentAgeMillis;
+    }
+
+    // should be called under lock of this
+    private boolean isSegmentFull(final int recordLength) {
+        if (segmentBuffer == null) {
+            return true;
+        }
+        // record which doesn't fit even into empty segment is started right in current segment
+        return recordLength <= segmentSize ? segmentBuffer.remaining() < recordLength : !segmentBuffer.hasRemaining();
+    }
+
+    /**
+     * Flushes current segment to disk and stops writing. Closed segments are compressed in background.
+     * Messages processed after closing are ignored.
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (segmentBuffer != null) {
+                segmentBuffer.force();
+            }
+            // there is no public API to unmap buffer so it is unmapped when buffer is collected
+            segmentBuffer = null;
+            segmentFile = null;
+        }
+        compressionExecutor.execute(this::compressClosedSegments);
+        compressionExecutor.shutdown();
+    }
+
+    // should be called under lock of this
+    private void openSegment(final long currentTime) {
+        final boolean hadSegment = segmentBuffer != null;
+        segmentBuffer = null;
+        segmentFile = null;
+        segmentStartTimeMillis = Math.max(currentTime, segmentStartTimeMillis + 1);
+        final File file = new File(directory, segmentStartTimeMillis + SEGMENT_EXTENSION);
+        RandomAccessFile randomAccessFile = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Can't create directory " + directory);
+            }
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            // mapping stays valid after closing of file
+            segmentBuffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            segmentFile = file;
+        } catch (final IOException exception) {
+            Log.e(FileLogProcessor.class.getSimpleName(), "Opening of log segment failed", exception);
+        } finally {
+            closeQuietly(randomAccessFile);
+        }
+        if (hadSegment) {
+            compressionExecutor.execute(this::compressClosedSegments);
+        }
+    }
+
+    private void compressClosedSegments() {
+        // segments are listed before getting current one so new segment couldn't be listed as closed
+        final List<File> segments = listSegments(SEGMENT_EXTENSION);
+        final File currentSegmentFile;
+        synchronized (this) {
+            currentSegmentFile = segmentFile;
+        }
+        for (final File file : segments) {
+            if (file.equals(currentSegmentFile)) {
+                continue;
+            }
+            final File compressedFile = new File(directory, getStartTime(file) + COMPRESSED_SEGMENT_EXTENSION);
+            final File temporaryFile = new File(compressedFile.getPath() + TEMPORARY_EXTENSION);
+            try {
+                compressSegment(file, temporaryFile);
+                if (!temporaryFile.renameTo(compressedFile)) {
+                    throw new IOException("Can't rename " + temporaryFile);
+                }
+                file.delete();
+            } catch (final IOException exception) {
+                // raw segment is kept to try to compress it again on next rotation (e.g. after disk space is freed)
+                Log.e(FileLogProcessor.class.getSimpleName(), "Compression of log segment failed", exception);
+                temporaryFile.delete();
+            }
+        }
+        final List<File> compressedSegments = listSegments(COMPRESSED_SEGMENT_EXTENSION);
+        for (int i = 0; i < compressedSegments.size() - (maxSegmentsCount - 1); i++) {
+            compressedSegments.get(i).delete();
+        }
+    }
+
+    private void compressSegment(@NonNull final File segment, @NonNull final File destination) throws IOException {
+        final InputStream inputStream = new FileInputStream(segment);
+        try {
+            final OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(destination));
+            try {
+                final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int count;
+                while ((count = inputStream.read(buffer)) > 0) {
+                    final int written = indexOfZero(buffer, count);
+                    outputStream.write(buffer, 0, written);
+                    if (written < count) {
+                        break;
+                    }
+                }
+            } finally {
+                outputStream.close();
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private int indexOfZero(@NonNull final byte[] buffer, final int count) {
+        for (int i = 0; i < count; i++) {
+            if (buffer[i] == 0) {
+                return i;
+            }
+        }
+        return count;
+    }
+
+    // returns segments sorted from oldest to newest
+    @NonNull
+    private List<File> listSegments(@NonNull final String extension) {
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(extension));
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        final List<File> result = new ArrayList<>(Arrays.asList(files));
+        Collections.sort(result, (first, second) -> {
+            final long difference = getStartTime(first) - getStartTime(second);
+            return difference < 0 ? -1 : (difference > 0 ? 1 : 0);
+        });
+        return result;
+    }
+
+    private long getStartTime(@NonNull final File segment) {
+        final String name = segment.getName();
+        final int extensionIndex = name.indexOf('.');
+        if (extensionIndex < 0) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(name.substring(0, extensionIndex));
+        } catch (final NumberFormatException exception) {
+            return 0;
+        }
+    }
+
+    /**
+     * Exports last log messages into gzip file. It is blocking method so it shouldn't be called from UI thread.
+     * Whole compressed segments are exported so size of result could be a bit more than max size.
+     *
+     * @param destination File to write logs to;
+     * @param maxBytes    Max size of compressed logs to export (current segment is exported anyway);
+     * @throws IOException Throws if logs couldn't be exported or processor is closed.
+     */
+    public void exportLastLogs(@NonNull final File destination, final long maxBytes) throws IOException {
+        try {
+            // waiting for compression of already closed segments
+            compressionExecutor.submit(() -> {
+                writeLastLogs(destination, maxBytes);
+                return null;
+            }).get();
+        } catch (final RejectedExecutionException exception) {
+            throw new IOException("Processor is closed", exception);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException(exception);
+        } catch (final ExecutionException exception) {
+            throw exception.getCause() instanceof IOException ? (IOException) exception.getCause() : new IOException(exception.getCause());
+        }
+    }
+
+    private void writeLastLogs(@NonNull final File destination, final long maxBytes) throws IOException {
+        final byte[] currentSegment;
+        synchronized (this) {
+            if (segmentBuffer != null) {
+                currentSegment = new byte[segmentBuffer.position()];
+                final ByteBuffer readBuffer = segmentBuffer.duplicate();
+                readBuffer.flip();
+                readBuffer.get(currentSegment);
+            } else {
+                currentSegment = new byte[0];
+            }
+        }
+        final List<File> compressedSegments = listSegments(COMPRESSED_SEGMENT_EXTENSION);
+        int firstSegment = compressedSegments.size();
+        long size = 0;
+        while (firstSegment > 0 && size + compressedSegments.get(firstSegment - 1).length() <= maxBytes) {
+            firstSegment--;
+            size += compressedSegments.get(firstSegment).length();
+        }
+        final OutputStream outputStream = new FileOutputStream(destination);
+        try {
+            final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            for (final File segment : compressedSegments.subList(firstSegment, compressedSegments.size())) {
+                final InputStream inputStream = new FileInputStream(segment);
+                try {
+                    int count;
+                    while ((count = inputStream.read(buffer)) > 0) {
+                        outputStream.write(buffer, 0, count);
+                    }
+                } finally {
+                    inputStream.close();
+                }
+            }
+            final GZIPOutputStream currentSegmentStream = new GZIPOutputStream(outputStream);
+            currentSegmentStream.write(currentSegment);
+            currentSegmentStream.finish();
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private void closeQuietly(@Nullable final RandomAccessFile file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (final IOException exception) {
+            Log.e(FileLogProcessor.class.getSimpleName(), "Closing of log segment failed", exception);
+        }
+    }
+
+}
@@ -27,11 +27,13 @@ import android.support.annotation.Nullable;
 import android.text.TextUtils;
 import android.util.Log;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 import ru.touchin.roboswag.core.utils.ShouldNotHappenException;
+import rx.functions.Func0;
 
 /**
  * Created by Gavriil Sitnikov on 13/11/2015.
@@ -49,6 +51,8 @@ public final class Lc {
     public static final int STACK_TRACE_CODE_DEPTH;
 
     private static boolean crashOnAssertions = true;
+    @Nullable
+    private static volatile AssertionAggregator assertionAggregator;
     @NonNull
     private static LogProcessor logProcessor = new ConsoleLogProcessor(LcLevel.ERROR);
 
@@ -73,6 +77,26 @@ public final class Lc {
         return crashOnAssertions;
     }
 
+    /**
+     * Returns aggregator of repeated assertions which is used if application is not crashing on assertions.
+     *
+     * @return Aggregator or null if all assertions are logged.
+     */
+    @Nullable
+    public static AssertionAggregator getAssertionAggregator() {
+        return assertionAggregator;
+    }
+
+    /**
+     * Sets aggregator of repeated assertions so only first assertion from each place of code and periodic summaries are logged
+     * if application is not crashing on assertions (see {@link #isCrashOnAssertions()}).
+     *
+     * @param assertionAggregator Aggregator or null to log all assertions.
+     */
+    public static void setAssertionAggregator(@Nullable final AssertionAggregator assertionAggregator) {
+        Lc.assertionAggregator = assertionAggregator;
+    }
+
     /**
      * Returns {@link LogProcessor} object to intercept incoming log messages (by default it returns {@link ConsoleLogProcessor}).
      *
@@ -106,6 +130,58 @@ public final class Lc {
         GENERAL_LC_GROUP.d(message, args);
     }
 
+    /**
+     * Logs debug message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Message to log.
+     */
+    public static void d(@NonNull final String message) {
+        GENERAL_LC_GROUP.d(message);
+    }
+
+    /**
+     * Logs debug message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message.
+     */
+    public static void d(@NonNull final String message, @Nullable final Object arg1) {
+        GENERAL_LC_GROUP.d(message, arg1);
+    }
+
+    /**
+     * Logs debug message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message.
+     */
+    public static void d(@NonNull final String message, @Nullable final Object arg1, @Nullable final Object arg2) {
+        GENERAL_LC_GROUP.d(message, arg1, arg2);
+    }
+
+    /**
+     * Logs debug message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message;
+     * @param arg3    Third argument of formatted message.
+     */
+    public static void d(@NonNull final String message,
+                         @Nullable final Object arg1, @Nullable final Object arg2, @Nullable final Object arg3) {
+        GENERAL_LC_GROUP.d(message, arg1, arg2, arg3);
+    }
+
+    /**
+     * Logs debug message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public static void d(@NonNull final Func0<String> messageCreator) {
+        GENERAL_LC_GROUP.d(messageCreator);
+    }
+
     /**
      * Logs debug message via {@link #GENERAL_LC_GROUP}.
      *
@@ -117,6 +193,26 @@ public final class Lc {
         GENERAL_LC_GROUP.d(throwable, message, args);
     }
 
+    /**
+     * Logs debug message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param throwable Exception to log;
+     * @param message   Message to log.
+     */
+    public static void d(@NonNull final Throwable throwable, @NonNull final String message) {
+        GENERAL_LC_GROUP.d(throwable, message);
+    }
+
+    /**
+     * Logs debug message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param throwable      Exception to log;
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public static void d(@NonNull final Throwable throwable, @NonNull final Func0<String> messageCreator) {
+        GENERAL_LC_GROUP.d(throwable, messageCreator);
+    }
+
     /**
      * Logs info message via {@link #GENERAL_LC_GROUP}.
      *
@@ -127,6 +223,58 @@ public final class Lc {
         GENERAL_LC_GROUP.i(message, args);
     }
 
+    /**
+     * Logs info message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Message to log.
+     */
+    public static void i(@NonNull final String message) {
+        GENERAL_LC_GROUP.i(message);
+    }
+
+    /**
+     * Logs info message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message.
+     */
+    public static void i(@NonNull final String message, @Nullable final Object arg1) {
+        GENERAL_LC_GROUP.i(message, arg1);
+    }
+
+    /**
+     * Logs info message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message.
+     */
+    public static void i(@NonNull final String message, @Nullable final Object arg1, @Nullable final Object arg2) {
+        GENERAL_LC_GROUP.i(message, arg1, arg2);
+    }
+
+    /**
+     * Logs info message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message;
+     * @param arg3    Third argument of formatted message.
+     */
+    public static void i(@NonNull final String message,
+                         @Nullable final Object arg1, @Nullable final Object arg2, @Nullable final Object arg3) {
+        GENERAL_LC_GROUP.i(message, arg1, arg2, arg3);
+    }
+
+    /**
+     * Logs info message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public static void i(@NonNull final Func0<String> messageCreator) {
+        GENERAL_LC_GROUP.i(messageCreator);
+    }
+
     /**
      * Logs info message via {@link #GENERAL_LC_GROUP}.
      *
@@ -138,6 +286,26 @@ public final class Lc {
         GENERAL_LC_GROUP.i(throwable, message, args);
     }
 
+    /**
+     * Logs info message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param throwable Exception to log;
+     * @param message   Message to log.
+     */
+    public static void i(@NonNull final Throwable throwable, @NonNull final String message) {
+        GENERAL_LC_GROUP.i(throwable, message);
+    }
+
+    /**
+     * Logs info message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param throwable      Exception to log;
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public static void i(@NonNull final Throwable throwable, @NonNull final Func0<String> messageCreator) {
+        GENERAL_LC_GROUP.i(throwable, messageCreator);
+    }
+
     /**
      * Logs warning message via {@link #GENERAL_LC_GROUP}.
      *
@@ -148,6 +316,58 @@ public final class Lc {
         GENERAL_LC_GROUP.w(message, args);
     }
 
+    /**
+     * Logs warning message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Message to log.
+     */
+    public static void w(@NonNull final String message) {
+        GENERAL_LC_GROUP.w(message);
+    }
+
+    /**
+     * Logs warning message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message.
+     */
+    public static void w(@NonNull final String message, @Nullable final Object arg1) {
+        GENERAL_LC_GROUP.w(message, arg1);
+    }
+
+    /**
+     * Logs warning message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message.
+     */
+    public static void w(@NonNull final String message, @Nullable final Object arg1, @Nullable final Object arg2) {
+        GENERAL_LC_GROUP.w(message, arg1, arg2);
+    }
+
+    /**
+     * Logs warning message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message;
+     * @param arg3    Third argument of formatted message.
+     */
+    public static void w(@NonNull final String message,
+                         @Nullable final Object arg1, @Nullable final Object arg2, @Nullable final Object arg3) {
+        GENERAL_LC_GROUP.w(message, arg1, arg2, arg3);
+    }
+
+    /**
+     * Logs warning message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public static void w(@NonNull final Func0<String> messageCreator) {
+        GENERAL_LC_GROUP.w(messageCreator);
+    }
+
     /**
      * Logs warning message via {@link #GENERAL_LC_GROUP}.
      *
@@ -159,6 +379,26 @@ public final class Lc {
         GENERAL_LC_GROUP.w(throwable, message, args);
     }
 
+    /**
+     * Logs warning message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param throwable Exception to log;
+     * @param message   Message to log.
+     */
+    public static void w(@NonNull final Throwable throwable, @NonNull final String message) {
+        GENERAL_LC_GROUP.w(throwable, message);
+    }
+
+    /**
+     * Logs warning message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param throwable      Exception to log;
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public static void w(@NonNull final Throwable throwable, @NonNull final Func0<String> messageCreator) {
+        GENERAL_LC_GROUP.w(throwable, messageCreator);
+    }
+
     /**
      * Logs error message via {@link #GENERAL_LC_GROUP}.
      *
@@ -169,6 +409,58 @@ public final class Lc {
         GENERAL_LC_GROUP.e(message, args);
     }
 
+    /**
+     * Logs error message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Message to log.
+     */
+    public static void e(@NonNull final String message) {
+        GENERAL_LC_GROUP.e(message);
+    }
+
+    /**
+     * Logs error message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message.
+     */
+    public static void e(@NonNull final String message, @Nullable final Object arg1) {
+        GENERAL_LC_GROUP.e(message, arg1);
+    }
+
+    /**
+     * Logs error message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message.
+     */
+    public static void e(@NonNull final String message, @Nullable final Object arg1, @Nullable final Object arg2) {
+        GENERAL_LC_GROUP.e(message, arg1, arg2);
+    }
+
+    /**
+     * Logs error message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message;
+     * @param arg3    Third argument of formatted message.
+     */
+    public static void e(@NonNull final String message,
+                         @Nullable final Object arg1, @Nullable final Object arg2, @Nullable final Object arg3) {
+        GENERAL_LC_GROUP.e(message, arg1, arg2, arg3);
+    }
+
+    /**
+     * Logs error message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public static void e(@NonNull final Func0<String> messageCreator) {
+        GENERAL_LC_GROUP.e(messageCreator);
+    }
+
     /**
      * Logs error message via {@link #GENERAL_LC_GROUP}.
      *
@@ -180,6 +472,26 @@ public final class Lc {
         GENERAL_LC_GROUP.e(throwable, message, args);
     }
 
+    /**
+     * Logs error message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param throwable Exception to log;
+     * @param message   Message to log.
+     */
+    public static void e(@NonNull final Throwable throwable, @NonNull final String message) {
+        GENERAL_LC_GROUP.e(throwable, message);
+    }
+
+    /**
+     * Logs error message via {@link #GENERAL_LC_GROUP}.
+     *
+     * @param throwable      Exception to log;
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public static void e(@NonNull final Throwable throwable, @NonNull final Func0<String> messageCreator) {
+        GENERAL_LC_GROUP.e(throwable, messageCreator);
+    }
+
     /**
      * Processes assertion. Normally it will throw {@link ShouldNotHappenException} and crash app.
      * If it should crash or not is specified at {@link Lc#isCrashOnAssertions()}.
@@ -212,24 +524,45 @@ public final class Lc {
      */
     @SafeVarargs
     public static void cutAssertion(@NonNull final Throwable assertion, @NonNull final Class<? extends Throwable>... exceptionsClassesToCut) {
-        new Handler(Looper.getMainLooper()).post(() -> {
-            final List<Throwable> processedExceptions = new ArrayList<>();
-            Throwable result = assertion;
-            boolean exceptionAssignableFromIgnores;
-            do {
-                exceptionAssignableFromIgnores = false;
-                processedExceptions.add(result);
-                for (final Class exceptionClass : exceptionsClassesToCut) {
-                    if (result.getClass().isAssignableFrom(exceptionClass)) {
-                        exceptionAssignableFromIgnores = true;
-                        result = result.getCause();
-                        break;
-                    }
+        cutAssertion(assertion, true, exceptionsClassesToCut);
+    }
+
+    /**
+     * Cuts top causes by type of exception class on calling thread and processes assertion.
+     * Assertion is posted to main thread only if it is going to crash application (see {@link #isCrashOnAssertions()}) and it is requested
+     * so bursts of assertions which are just logged are not flooding main thread's queue.
+     *
+     * @param assertion              Source throwable;
+     * @param throwOnMainThread      Flag to throw assertion on main thread (to avoid catching of it by Rx e.g.);
+     * @param exceptionsClassesToCut Classes which will be cut from top of causes stack of source throwable.
+     */
+    @SafeVarargs
+    public static void cutAssertion(@NonNull final Throwable assertion, final boolean throwOnMainThread,
+                                    @NonNull final Class<? extends Throwable>... exceptionsClassesToCut) {
+        // causes are cut right here as passing generic varargs array to other method is not type-safe by lint;
+        // causes could be looped so processed exceptions are compared by identity
+        final Set<Throwable> processedExceptions = Collections.newSetFromMap(new IdentityHashMap<>());
+        Throwable cutAssertion = assertion;
+        boolean exceptionAssignableFromIgnores;
+        do {
+            exceptionAssignableFromIgnores = false;
+            processedExceptions.add(cutAssertion);
+            for (final Class<? extends Throwable> exceptionClass : exceptionsClassesToCut) {
+                if (cutAssertion.getClass().isAssignableFrom(exceptionClass)) {
+                    exceptionAssignableFromIgnores = true;
+                    cutAssertion = cutAssertion.getCause();
+                    break;
                 }
             }
-            while (exceptionAssignableFromIgnores && result != null && !processedExceptions.contains(result));
-            Lc.assertion(result != null ? result : assertion);
-        });
+        }
+        while (exceptionAssignableFromIgnores && cutAssertion != null && !processedExceptions.contains(cutAssertion));
+        final Throwable result = cutAssertion != null ? cutAssertion : assertion;
+        // code point of this method is the same for all cut assertions so they are identified by resulting throwable
+        if (throwOnMainThread && crashOnAssertions) {
+            MainThreadHandlerHolder.HANDLER.post(() -> GENERAL_LC_GROUP.throwableAssertion(result));
+        } else {
+            GENERAL_LC_GROUP.throwableAssertion(result);
+        }
     }
 
     /**
@@ -274,4 +607,11 @@ public final class Lc {
     private Lc() {
     }
 
+    // handler is created lazily so Lc could be used without main looper (e.g. in unit tests)
+    private static class MainThreadHandlerHolder {
+
+        private static final Handler HANDLER = new Handler(Looper.getMainLooper());
+
+    }
+
 }
@@ -22,11 +22,9 @@ package ru.touchin.roboswag.core.log;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
-import java.text.SimpleDateFormat;
-import java.util.Locale;
-
+import ru.touchin.roboswag.core.metrics.Metrics;
 import ru.touchin.roboswag.core.utils.ShouldNotHappenException;
-import ru.touchin.roboswag.core.utils.ThreadLocalValue;
+import rx.functions.Func0;
 
 /**
  * Created by Gavriil Sitnikov on 14/05/2016.
@@ -37,34 +35,168 @@ import ru.touchin.roboswag.core.utils.ThreadLocalValue;
 //MethodNameCheck,ShortMethodName: log methods better be 1-symbol
 public class LcGroup {
 
-    private static final ThreadLocalValue<SimpleDateFormat> DATE_TIME_FORMATTER
-            = new ThreadLocalValue<>(() -> new SimpleDateFormat("HH:mm:ss.SSS", Locale.getDefault()));
+    /**
+     * Prefix of names of {@link Metrics} counters of processed messages per level (e.g. "log.messages.WARN").
+     */
+    public static final String MESSAGES_METRIC_NAME_PREFIX = "log.messages.";
+    /**
+     * Name of {@link Metrics} counter of messages skipped by {@link LogSampler}.
+     */
+    public static final String SAMPLED_OUT_METRIC_NAME = "log.sampledOut";
+    /**
+     * Name of {@link Metrics} histogram of durations of passing messages to {@link LogProcessor}.
+     */
+    public static final String PROCESSING_METRIC_NAME = "log.processing";
+
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final String[] MESSAGES_METRIC_NAMES = createMessagesMetricNames();
+    // min priority value which means that min level of LogProcessor is used
+    private static final int PROCESSOR_MIN_PRIORITY = -1;
 
     @NonNull
     private final String name;
     private boolean disabled;
+    @Nullable
+    private LcLevel minLogLevel;
+    // combination of disabled flag and min level to check level by single volatile read
+    private volatile int minPriority = PROCESSOR_MIN_PRIORITY;
+    @Nullable
+    private volatile LogSampler logSampler;
+    private volatile boolean stackWalkingEnabled = true;
 
     public LcGroup(@NonNull final String name) {
         this.name = name;
     }
 
+    /**
+     * Returns name of group (tag prefix).
+     *
+     * @return Name of group.
+     */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
     /**
      * Disables logging of this group.
      */
     public void disable() {
-        disabled = true;
+        synchronized (this) {
+            disabled = true;
+            updateMinPriority();
+        }
     }
 
     /**
      * Enables logging of this group.
      */
     public void enable() {
-        disabled = false;
+        synchronized (this) {
+            disabled = false;
+            updateMinPriority();
+        }
+    }
+
+    /**
+     * Sets minimum level of messages of this group. It is overriding {@link LogProcessor#getMinLogLevel()}
+     * so logging of specific group could be made more (or less) detailed at runtime.
+     *
+     * @param minLogLevel Minimum level of messages or null to use {@link LogProcessor#getMinLogLevel()}.
+     */
+    public void setMinLogLevel(@Nullable final LcLevel minLogLevel) {
+        synchronized (this) {
+            this.minLogLevel = minLogLevel;
+            updateMinPriority();
+        }
+    }
+
+    /**
+     * Returns minimum level of messages of this group.
+     *
+     * @return Minimum level of messages or null if {@link LogProcessor#getMinLogLevel()} is used.
+     */
+    @Nullable
+    public LcLevel getMinLogLevel() {
+        synchronized (this) {
+            return minLogLevel;
+        }
+    }
+
+    // should be called under lock of this
+    private void updateMinPriority() {
+        minPriority = disabled ? Integer.MAX_VALUE : (minLogLevel != null ? minLogLevel.getPriority() : PROCESSOR_MIN_PRIORITY);
+    }
+
+    /**
+     * Sets sampler to limit count of messages (except assertions) of this group (e.g. by rate per call site or randomly).
+     *
+     * @param logSampler Sampler or null to log all messages.
+     */
+    public void setLogSampler(@Nullable final LogSampler logSampler) {
+        this.logSampler = logSampler;
+    }
+
+    /**
+     * Sets if tag of log message should be calculated by stack walking (as file name and line of calling code)
+     * if it is not passed explicitly by {@link LogSite}. Stack walking is expensive so it could be disabled in production
+     * and then name of group is used as tag.
+     *
+     * @param stackWalkingEnabled True to calculate tags by stack walking.
+     */
+    public void setStackWalkingEnabled(final boolean stackWalkingEnabled) {
+        this.stackWalkingEnabled = stackWalkingEnabled;
+    }
+
+    /**
+     * Returns if tag of log message is calculated by stack walking.
+     *
+     * @return True if stack walking is enabled.
+     */
+    public boolean isStackWalkingEnabled() {
+        return stackWalkingEnabled;
+    }
+
+    /**
+     * Returns if messages with specific level are passing to {@link LogProcessor}.
+     * Use it to skip preparing of log message arguments (e.g. boxing or string building) when logging is filtered out.
+     *
+     * @param logLevel Level of message;
+     * @return True if message with such level will be logged.
+     */
+    public boolean isLoggable(@NonNull final LcLevel logLevel) {
+        final int minPriority = this.minPriority;
+        return minPriority == PROCESSOR_MIN_PRIORITY
+                ? !logLevel.lessThan(Lc.getLogProcessor().getMinLogLevel())
+                : logLevel.getPriority() >= minPriority;
+    }
+
+    /**
+     * Returns if debug messages are passing to {@link LogProcessor}.
+     *
+     * @return True if debug messages will be logged.
+     */
+    public boolean isDebugEnabled() {
+        return isLoggable(LcLevel.DEBUG);
+    }
+
+    /**
+     * Returns if info messages are passing to {@link LogProcessor}.
+     *
+     * @return True if info messages will be logged.
+     */
+    public boolean isInfoEnabled() {
+        return isLoggable(LcLevel.INFO);
     }
 
     @NonNull
     private String createLogTag() {
-        final StackTraceElement trace = Thread.currentThread().getStackTrace()[Lc.STACK_TRACE_CODE_DEPTH + 3];
+        if (!stackWalkingEnabled) {
+            return name;
+        }
+        // stack walking is the main cost so caching of tags by stack trace elements would not save much;
+        // use LogSite or disable stack walking to avoid it
+        final StackTraceElement trace = Thread.currentThread().getStackTrace()[Lc.STACK_TRACE_CODE_DEPTH + 4];
         return trace.getFileName() + ':' + trace.getLineNumber();
     }
 
@@ -83,17 +215,14 @@ public class LcGroup {
         }
     }
 
-    @NonNull
-    private String createLogMessage(@Nullable final String formattedMessage) {
-        return DATE_TIME_FORMATTER.get().format(System.currentTimeMillis())
-                + ' ' + Thread.currentThread().getName()
-                + ' ' + name
-                + (formattedMessage != null ? (' ' + formattedMessage) : "");
-    }
-
-    private void logMessage(@NonNull final LcLevel logLevel, @Nullable final String message,
+    private void logMessage(@NonNull final LcLevel logLevel, @Nullable final LogSite logSite, @Nullable final String message,
                             @Nullable final Throwable throwable, @NonNull final Object... args) {
-        if (disabled || logLevel.lessThan(Lc.getLogProcessor().getMinLogLevel())) {
+        if (!isLoggable(logLevel)) {
+            return;
+        }
+
+        final String tag = getTag(logSite);
+        if (!shouldLog(logLevel, tag)) {
             return;
         }
 
@@ -101,12 +230,77 @@ public class LcGroup {
             Lc.w("Maybe you've misplaced exception with first format arg? format: %s; arg: %s", message, args[0]);
         }
 
-        final String formattedMessage = createFormattedMessage(message, args);
+        processMessage(logLevel, tag, createFormattedMessage(message, args), throwable);
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    //AvoidCatchingThrowable: it is needed to safety create message
+    private void logLazyMessage(@NonNull final LcLevel logLevel, @Nullable final LogSite logSite,
+                                @NonNull final Func0<String> messageCreator, @Nullable final Throwable throwable) {
+        if (!isLoggable(logLevel)) {
+            return;
+        }
+        final String tag = getTag(logSite);
+        if (!shouldLog(logLevel, tag)) {
+            return;
+        }
+
+        String message;
+        try {
+            message = messageCreator.call();
+        } catch (final Throwable creationException) {
+            Lc.assertion(creationException);
+            message = null;
+        }
+        processMessage(logLevel, tag, message, throwable);
+    }
+
+    @NonNull
+    private String getTag(@Nullable final LogSite logSite) {
+        return logSite != null ? logSite.getTag() : createLogTag();
+    }
+
+    @NonNull
+    private static String[] createMessagesMetricNames() {
+        final LcLevel[] levels = LcLevel.values();
+        final String[] result = new String[levels.length];
+        for (final LcLevel level : levels) {
+            result[level.ordinal()] = MESSAGES_METRIC_NAME_PREFIX + level.name();
+        }
+        return result;
+    }
+
+    private boolean shouldLog(@NonNull final LcLevel logLevel, @NonNull final String tag) {
+        final LogSampler logSampler = this.logSampler;
+        if (logSampler == null || logLevel == LcLevel.ASSERT || logSampler.shouldLog(this, logLevel, tag)) {
+            return true;
+        }
+        Metrics.increment(SAMPLED_OUT_METRIC_NAME);
+        return false;
+    }
+
+    /**
+     * Passes message to {@link LogProcessor} bypassing disabling, min level and sampler of group.
+     * It is used for messages that should be logged if assertions of group are logged (e.g. summaries of repeated assertions).
+     *
+     * @param logLevel Level of message, not {@link LcLevel#ASSERT};
+     * @param logSite  Place of code where message is coming from;
+     * @param message  Message to log.
+     */
+    void logBypassingFilters(@NonNull final LcLevel logLevel, @NonNull final LogSite logSite, @NonNull final String message) {
+        processMessage(logLevel, logSite.getTag(), message, null);
+    }
+
+    private void processMessage(@NonNull final LcLevel logLevel, @NonNull final String tag, @Nullable final String formattedMessage,
+                                @Nullable final Throwable throwable) {
         if (logLevel == LcLevel.ASSERT && Lc.isCrashOnAssertions()) {
             throw createAssertion(formattedMessage, throwable);
         }
 
-        Lc.getLogProcessor().processLogMessage(this, logLevel, createLogTag(), createLogMessage(formattedMessage), throwable);
+        Metrics.increment(MESSAGES_METRIC_NAMES[logLevel.ordinal()]);
+        final long startNanoTime = Metrics.startTiming();
+        Lc.getLogProcessor().processRawMessage(this, logLevel, tag, formattedMessage, throwable, null);
+        Metrics.recordTiming(PROCESSING_METRIC_NAME, startNanoTime);
     }
 
     @NonNull
@@ -124,7 +318,64 @@ public class LcGroup {
      * @param args    Arguments of formatted message.
      */
     public void d(@NonNull final String message, @NonNull final Object... args) {
-        logMessage(LcLevel.DEBUG, message, null, args);
+        logMessage(LcLevel.DEBUG, null, message, null, args);
+    }
+
+    /**
+     * Logs debug message.
+     *
+     * @param message Message to log.
+     */
+    public void d(@NonNull final String message) {
+        logMessage(LcLevel.DEBUG, null, message, null, NO_ARGS);
+    }
+
+    /**
+     * Logs debug message.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message.
+     */
+    public void d(@NonNull final String message, @Nullable final Object arg1) {
+        if (isLoggable(LcLevel.DEBUG)) {
+            logMessage(LcLevel.DEBUG, null, message, null, arg1);
+        }
+    }
+
+    /**
+     * Logs debug message.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message.
+     */
+    public void d(@NonNull final String message, @Nullable final Object arg1, @Nullable final Object arg2) {
+        if (isLoggable(LcLevel.DEBUG)) {
+            logMessage(LcLevel.DEBUG, null, message, null, arg1, arg2);
+        }
+    }
+
+    /**
+     * Logs debug message.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message;
+     * @param arg3    Third argument of formatted message.
+     */
+    public void d(@NonNull final String message, @Nullable final Object arg1, @Nullable final Object arg2, @Nullable final Object arg3) {
+        if (isLoggable(LcLevel.DEBUG)) {
+            logMessage(LcLevel.DEBUG, null, message, null, arg1, arg2, arg3);
+        }
+    }
+
+    /**
+     * Logs debug message.
+     *
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public void d(@NonNull final Func0<String> messageCreator) {
+        logLazyMessage(LcLevel.DEBUG, null, messageCreator, null);
     }
 
     /**
@@ -135,7 +386,27 @@ public class LcGroup {
      * @param args      Arguments of formatted message.
      */
     public void d(@NonNull final Throwable throwable, @NonNull final String message, @NonNull final Object... args) {
-        logMessage(LcLevel.DEBUG, message, throwable, args);
+        logMessage(LcLevel.DEBUG, null, message, throwable, args);
+    }
+
+    /**
+     * Logs debug message.
+     *
+     * @param throwable Exception to log;
+     * @param message   Message to log.
+     */
+    public void d(@NonNull final Throwable throwable, @NonNull final String message) {
+        logMessage(LcLevel.DEBUG, null, message, throwable, NO_ARGS);
+    }
+
+    /**
+     * Logs debug message.
+     *
+     * @param throwable      Exception to log;
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public void d(@NonNull final Throwable throwable, @NonNull final Func0<String> messageCreator) {
+        logLazyMessage(LcLevel.DEBUG, null, messageCreator, throwable);
     }
 
     /**
@@ -145,7 +416,64 @@ public class LcGroup {
      * @param args    Arguments of formatted message.
      */
     public void i(@NonNull final String message, @NonNull final Object... args) {
-        logMessage(LcLevel.INFO, message, null, args);
+        logMessage(LcLevel.INFO, null, message, null, args);
+    }
+
+    /**
+     * Logs info message.
+     *
+     * @param message Message to log.
+     */
+    public void i(@NonNull final String message) {
+        logMessage(LcLevel.INFO, null, message, null, NO_ARGS);
+    }
+
+    /**
+     * Logs info message.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message.
+     */
+    public void i(@NonNull final String message, @Nullable final Object arg1) {
+        if (isLoggable(LcLevel.INFO)) {
+            logMessage(LcLevel.INFO, null, message, null, arg1);
+        }
+    }
+
+    /**
+     * Logs info message.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message.
+     */
+    public void i(@NonNull final String message, @Nullable final Object arg1, @Nullable final Object arg2) {
+        if (isLoggable(LcLevel.INFO)) {
+            logMessage(LcLevel.INFO, null, message, null, arg1, arg2);
+        }
+    }
+
+    /**
+     * Logs info message.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message;
+     * @param arg3    Third argument of formatted message.
+     */
+    public void i(@NonNull final String message, @Nullable final Object arg1, @Nullable final Object arg2, @Nullable final Object arg3) {
+        if (isLoggable(LcLevel.INFO)) {
+            logMessage(LcLevel.INFO, null, message, null, arg1, arg2, arg3);
+        }
+    }
+
+    /**
+     * Logs info message.
+     *
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public void i(@NonNull final Func0<String> messageCreator) {
+        logLazyMessage(LcLevel.INFO, null, messageCreator, null);
     }
 
     /**
@@ -156,7 +484,27 @@ public class LcGroup {
      * @param args      Arguments of formatted message.
      */
     public void i(@NonNull final Throwable throwable, @NonNull final String message, @NonNull final Object... args) {
-        logMessage(LcLevel.INFO, message, throwable, args);
+        logMessage(LcLevel.INFO, null, message, throwable, args);
+    }
+
+    /**
+     * Logs info message.
+     *
+     * @param throwable Exception to log;
+     * @param message   Message to log.
+     */
+    public void i(@NonNull final Throwable throwable, @NonNull final String message) {
+        logMessage(LcLevel.INFO, null, message, throwable, NO_ARGS);
+    }
+
+    /**
+     * Logs info message.
+     *
+     * @param throwable      Exception to log;
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public void i(@NonNull final Throwable throwable, @NonNull final Func0<String> messageCreator) {
+        logLazyMessage(LcLevel.INFO, null, messageCreator, throwable);
     }
 
     /**
@@ -166,7 +514,64 @@ public class LcGroup {
      * @param args    Arguments of formatted message.
      */
     public void w(@NonNull final String message, @NonNull final Object... args) {
-        logMessage(LcLevel.WARN, message, null, args);
+        logMessage(LcLevel.WARN, null, message, null, args);
+    }
+
+    /**
+     * Logs warning message.
+     *
+     * @param message Message to log.
+     */
+    public void w(@NonNull final String message) {
+        logMessage(LcLevel.WARN, null, message, null, NO_ARGS);
+    }
+
+    /**
+     * Logs warning message.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message.
+     */
+    public void w(@NonNull final String message, @Nullable final Object arg1) {
+        if (isLoggable(LcLevel.WARN)) {
+            logMessage(LcLevel.WARN, null, message, null, arg1);
+        }
+    }
+
+    /**
+     * Logs warning message.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message.
+     */
+    public void w(@NonNull final String message, @Nullable final Object arg1, @Nullable final Object arg2) {
+        if (isLoggable(LcLevel.WARN)) {
+            logMessage(LcLevel.WARN, null, message, null, arg1, arg2);
+        }
+    }
+
+    /**
+     * Logs warning message.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message;
+     * @param arg3    Third argument of formatted message.
+     */
+    public void w(@NonNull final String message, @Nullable final Object arg1, @Nullable final Object arg2, @Nullable final Object arg3) {
+        if (isLoggable(LcLevel.WARN)) {
+            logMessage(LcLevel.WARN, null, message, null, arg1, arg2, arg3);
+        }
+    }
+
+    /**
+     * Logs warning message.
+     *
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public void w(@NonNull final Func0<String> messageCreator) {
+        logLazyMessage(LcLevel.WARN, null, messageCreator, null);
     }
 
     /**
@@ -177,7 +582,27 @@ public class LcGroup {
      * @param args      Arguments of formatted message.
      */
     public void w(@NonNull final Throwable throwable, @NonNull final String message, @NonNull final Object... args) {
-        logMessage(LcLevel.WARN, message, throwable, args);
+        logMessage(LcLevel.WARN, null, message, throwable, args);
+    }
+
+    /**
+     * Logs warning message.
+     *
+     * @param throwable Exception to log;
+     * @param message   Message to log.
+     */
+    public void w(@NonNull final Throwable throwable, @NonNull final String message) {
+        logMessage(LcLevel.WARN, null, message, throwable, NO_ARGS);
+    }
+
+    /**
+     * Logs warning message.
+     *
+     * @param throwable      Exception to log;
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public void w(@NonNull final Throwable throwable, @NonNull final Func0<String> messageCreator) {
+        logLazyMessage(LcLevel.WARN, null, messageCreator, throwable);
     }
 
     /**
@@ -187,7 +612,64 @@ public class LcGroup {
      * @param args    Arguments of formatted message.
      */
     public void e(@NonNull final String message, @NonNull final Object... args) {
-        logMessage(LcLevel.ERROR, message, null, args);
+        logMessage(LcLevel.ERROR, null, message, null, args);
+    }
+
+    /**
+     * Logs error message.
+     *
+     * @param message Message to log.
+     */
+    public void e(@NonNull final String message) {
+        logMessage(LcLevel.ERROR, null, message, null, NO_ARGS);
+    }
+
+    /**
+     * Logs error message.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message.
+     */
+    public void e(@NonNull final String message, @Nullable final Object arg1) {
+        if (isLoggable(LcLevel.ERROR)) {
+            logMessage(LcLevel.ERROR, null, message, null, arg1);
+        }
+    }
+
+    /**
+     * Logs error message.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message.
+     */
+    public void e(@NonNull final String message, @Nullable final Object arg1, @Nullable final Object arg2) {
+        if (isLoggable(LcLevel.ERROR)) {
+            logMessage(LcLevel.ERROR, null, message, null, arg1, arg2);
+        }
+    }
+
+    /**
+     * Logs error message.
+     *
+     * @param message Format of message to log;
+     * @param arg1    First argument of formatted message;
+     * @param arg2    Second argument of formatted message;
+     * @param arg3    Third argument of formatted message.
+     */
+    public void e(@NonNull final String message, @Nullable final Object arg1, @Nullable final Object arg2, @Nullable final Object arg3) {
+        if (isLoggable(LcLevel.ERROR)) {
+            logMessage(LcLevel.ERROR, null, message, null, arg1, arg2, arg3);
+        }
+    }
+
+    /**
+     * Logs error message.
+     *
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public void e(@NonNull final Func0<String> messageCreator) {
+        logLazyMessage(LcLevel.ERROR, null, messageCreator, null);
     }
 
     /**
@@ -198,7 +680,273 @@ public class LcGroup {
      * @param args      Arguments of formatted message.
      */
     public void e(@NonNull final Throwable throwable, @NonNull final String message, @NonNull final Object... args) {
-        logMessage(LcLevel.ERROR, message, throwable, args);
+        logMessage(LcLevel.ERROR, null, message, throwable, args);
+    }
+
+    /**
+     * Logs error message.
+     *
+     * @param throwable Exception to log;
+     * @param message   Message to log.
+     */
+    public void e(@NonNull final Throwable throwable, @NonNull final String message) {
+        logMessage(LcLevel.ERROR, null, message, throwable, NO_ARGS);
+    }
+
+    /**
+     * Logs error message.
+     *
+     * @param throwable      Exception to log;
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public void e(@NonNull final Throwable throwable, @NonNull final Func0<String> messageCreator) {
+        logLazyMessage(LcLevel.ERROR, null, messageCreator, throwable);
+    }
+
+    /**
+     * Logs message with tag of precomputed {@link LogSite} so stack is not walking to calculate tag.
+     *
+     * @param logLevel Level of message;
+     * @param logSite  Place of code where message is coming from;
+     * @param message  Message or format of message to log;
+     * @param args     Arguments of formatted message.
+     */
+    public void log(@NonNull final LcLevel logLevel, @NonNull final LogSite logSite,
+                    @NonNull final String message, @NonNull final Object... args) {
+        logMessage(logLevel, logSite, message, null, args);
+    }
+
+    /**
+     * Logs message with tag of precomputed {@link LogSite} so stack is not walking to calculate tag.
+     *
+     * @param logLevel  Level of message;
+     * @param logSite   Place of code where message is coming from;
+     * @param throwable Exception to log;
+     * @param message   Message or format of message to log;
+     * @param args      Arguments of formatted message.
+     */
+    public void log(@NonNull final LcLevel logLevel, @NonNull final LogSite logSite, @NonNull final Throwable throwable,
+                    @NonNull final String message, @NonNull final Object... args) {
+        logMessage(logLevel, logSite, message, throwable, args);
+    }
+
+    /**
+     * Logs message with tag of precomputed {@link LogSite} so stack is not walking to calculate tag.
+     *
+     * @param logLevel       Level of message;
+     * @param logSite        Place of code where message is coming from;
+     * @param messageCreator Function that creates message to log. It is called only if message is loggable.
+     */
+    public void log(@NonNull final LcLevel logLevel, @NonNull final LogSite logSite, @NonNull final Func0<String> messageCreator) {
+        logLazyMessage(logLevel, logSite, messageCreator, null);
+    }
+
+    /**
+     * Logs message with structured field. Message is not formatted and field is passed to {@link LogProcessor#processStructured(LogEvent)}.
+     *
+     * @param logLevel Level of message;
+     * @param message  Message to log;
+     * @param key1     Key of field;
+     * @param value1   Value of field.
+     */
+    public void logFields(@NonNull final LcLevel logLevel, @NonNull final String message,
+                          @NonNull final String key1, @Nullable final Object value1) {
+        if (isLoggable(logLevel)) {
+            logStructuredMessage(logLevel, null, message, null, new Object[]{key1, value1});
+        }
+    }
+
+    /**
+     * Logs message with structured fields.
+     * Message is not formatted and fields are passed to {@link LogProcessor#processStructured(LogEvent)}.
+     *
+     * @param logLevel Level of message;
+     * @param message  Message to log;
+     * @param key1     Key of first field;
+     * @param value1   Value of first field;
+     * @param key2     Key of second field;
+     * @param value2   Value of second field.
+     */
+    public void logFields(@NonNull final LcLevel logLevel, @NonNull final String message,
+                          @NonNull final String key1, @Nullable final Object value1,
+                          @NonNull final String key2, @Nullable final Object value2) {
+        if (isLoggable(logLevel)) {
+            logStructuredMessage(logLevel, null, message, null, new Object[]{key1, value1, key2, value2});
+        }
+    }
+
+    /**
+     * Logs message with structured fields.
+     * Message is not formatted and fields are passed to {@link LogProcessor#processStructured(LogEvent)}.
+     *
+     * @param logLevel Level of message;
+     * @param message  Message to log;
+     * @param key1     Key of first field;
+     * @param value1   Value of first field;
+     * @param key2     Key of second field;
+     * @param value2   Value of second field;
+     * @param key3     Key of third field;
+     * @param value3   Value of third field.
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    //ParameterNumber: it is needed to not allocate varargs array when level is not loggable
+    public void logFields(@NonNull final LcLevel logLevel, @NonNull final String message,
+                          @NonNull final String key1, @Nullable final Object value1,
+                          @NonNull final String key2, @Nullable final Object value2,
+                          @NonNull final String key3, @Nullable final Object value3) {
+        if (isLoggable(logLevel)) {
+            logStructuredMessage(logLevel, null, message, null, new Object[]{key1, value1, key2, value2, key3, value3});
+        }
+    }
+
+    /**
+     * Logs message with structured fields.
+     * Message is not formatted and fields are passed to {@link LogProcessor#processStructured(LogEvent)}.
+     * Varargs array is created before call so check {@link #isLoggable(LcLevel)} first on hot paths.
+     *
+     * @param logLevel      Level of message;
+     * @param message       Message to log;
+     * @param keysAndValues Keys (strings) and values of fields one after another.
+     */
+    public void logFields(@NonNull final LcLevel logLevel, @NonNull final String message, @NonNull final Object... keysAndValues) {
+        if (isLoggable(logLevel)) {
+            logStructuredMessage(logLevel, null, message, null, keysAndValues);
+        }
+    }
+
+    /**
+     * Logs message with exception and structured fields.
+     * Message is not formatted and fields are passed to {@link LogProcessor#processStructured(LogEvent)}.
+     * Varargs array is created before call so check {@link #isLoggable(LcLevel)} first on hot paths.
+     *
+     * @param logLevel      Level of message;
+     * @param throwable     Exception to log;
+     * @param message       Message to log;
+     * @param keysAndValues Keys (strings) and values of fields one after another.
+     */
+    public void logFields(@NonNull final LcLevel logLevel, @NonNull final Throwable throwable, @NonNull final String message,
+                          @NonNull final Object... keysAndValues) {
+        if (isLoggable(logLevel)) {
+            logStructuredMessage(logLevel, null, message, throwable, keysAndValues);
+        }
+    }
+
+    /**
+     * Logs message with structured field and with tag of precomputed {@link LogSite} so stack is not walking to calculate tag.
+     * Message is not formatted and field is passed to {@link LogProcessor#processStructured(LogEvent)}.
+     *
+     * @param logLevel Level of message;
+     * @param logSite  Place of code where message is coming from;
+     * @param message  Message to log;
+     * @param key1     Key of field;
+     * @param value1   Value of field.
+     */
+    public void logFields(@NonNull final LcLevel logLevel, @NonNull final LogSite logSite, @NonNull final String message,
+                          @NonNull final String key1, @Nullable final Object value1) {
+        if (isLoggable(logLevel)) {
+            logStructuredMessage(logLevel, logSite, message, null, new Object[]{key1, value1});
+        }
+    }
+
+    /**
+     * Logs message with structured fields and with tag of precomputed {@link LogSite} so stack is not walking to calculate tag.
+     * Message is not formatted and fields are passed to {@link LogProcessor#processStructured(LogEvent)}.
+     *
+     * @param logLevel Level of message;
+     * @param logSite  Place of code where message is coming from;
+     * @param message  Message to log;
+     * @param key1     Key of first field;
+     * @param value1   Value of first field;
+     * @param key2     Key of second field;
+     * @param value2   Value of second field.
+     */
+    public void logFields(@NonNull final LcLevel logLevel, @NonNull final LogSite logSite, @NonNull final String message,
+                          @NonNull final String key1, @Nullable final Object value1,
+                          @NonNull final String key2, @Nullable final Object value2) {
+        if (isLoggable(logLevel)) {
+            logStructuredMessage(logLevel, logSite, message, null, new Object[]{key1, value1, key2, value2});
+        }
+    }
+
+    /**
+     * Logs message with structured fields and with tag of precomputed {@link LogSite} so stack is not walking to calculate tag.
+     * Message is not formatted and fields are passed to {@link LogProcessor#processStructured(LogEvent)}.
+     *
+     * @param logLevel Level of message;
+     * @param logSite  Place of code where message is coming from;
+     * @param message  Message to log;
+     * @param key1     Key of first field;
+     * @param value1   Value of first field;
+     * @param key2     Key of second field;
+     * @param value2   Value of second field;
+     * @param key3     Key of third field;
+     * @param value3   Value of third field.
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    //ParameterNumber: it is needed to not allocate varargs array when level is not loggable
+    public void logFields(@NonNull final LcLevel logLevel, @NonNull final LogSite logSite, @NonNull final String message,
+                          @NonNull final String key1, @Nullable final Object value1,
+                          @NonNull final String key2, @Nullable final Object value2,
+                          @NonNull final String key3, @Nullable final Object value3) {
+        if (isLoggable(logLevel)) {
+            logStructuredMessage(logLevel, logSite, message, null, new Object[]{key1, value1, key2, value2, key3, value3});
+        }
+    }
+
+    /**
+     * Logs message with structured fields and with tag of precomputed {@link LogSite} so stack is not walking to calculate tag.
+     * Message is not formatted and fields are passed to {@link LogProcessor#processStructured(LogEvent)}.
+     * Varargs array is created before call so check {@link #isLoggable(LcLevel)} first on hot paths.
+     *
+     * @param logLevel      Level of message;
+     * @param logSite       Place of code where message is coming from;
+     * @param message       Message to log;
+     * @param keysAndValues Keys (strings) and values of fields one after another.
+     */
+    public void logFields(@NonNull final LcLevel logLevel, @NonNull final LogSite logSite, @NonNull final String message,
+                          @NonNull final Object... keysAndValues) {
+        if (isLoggable(logLevel)) {
+            logStructuredMessage(logLevel, logSite, message, null, keysAndValues);
+        }
+    }
+
+    /**
+     * Logs message with exception, structured fields and with tag of precomputed {@link LogSite} so stack is not walking to calculate tag.
+     * Message is not formatted and fields are passed to {@link LogProcessor#processStructured(LogEvent)}.
+     * Varargs array is created before call so check {@link #isLoggable(LcLevel)} first on hot paths.
+     *
+     * @param logLevel      Level of message;
+     * @param logSite       Place of code where message is coming from;
+     * @param throwable     Exception to log;
+     * @param message       Message to log;
+     * @param keysAndValues Keys (strings) and values of fields one after another.
+     */
+    public void logFields(@NonNull final LcLevel logLevel, @NonNull final LogSite logSite, @NonNull final Throwable throwable,
+                          @NonNull final String message, @NonNull final Object... keysAndValues) {
+        if (isLoggable(logLevel)) {
+            logStructuredMessage(logLevel, logSite, message, throwable, keysAndValues);
+        }
+    }
+
+    // level should be checked by isLoggable() before call
+    private void logStructuredMessage(@NonNull final LcLevel logLevel, @Nullable final LogSite logSite, @NonNull final String message,
+                                      @Nullable final Throwable throwable, @NonNull final Object[] keysAndValues) {
+        final String tag = getTag(logSite);
+        if (!shouldLog(logLevel, tag)) {
+            return;
+        }
+        if (keysAndValues.length % 2 != 0) {
+            Lc.assertion("Keys and values of fields should go in pairs: " + message);
+            return;
+        }
+        if (logLevel == LcLevel.ASSERT && Lc.isCrashOnAssertions()) {
+            throw createAssertion(message, throwable);
+        }
+
+        Metrics.increment(MESSAGES_METRIC_NAMES[logLevel.ordinal()]);
+        final long startNanoTime = Metrics.startTiming();
+        Lc.getLogProcessor().processRawMessage(this, logLevel, tag, message, throwable, keysAndValues);
+        Metrics.recordTiming(PROCESSING_METRIC_NAME, startNanoTime);
     }
 
     /**
@@ -210,7 +958,14 @@ public class LcGroup {
      * @param message Message that is describing assertion.
      */
     public void assertion(@NonNull final String message) {
-        logMessage(LcLevel.ASSERT, "Assertion appears at %s with message: %s", null, Lc.getCodePoint(null, 2), message);
+        if (stackWalkingEnabled) {
+            final String codePoint = Lc.getCodePoint(null, 2);
+            if (shouldReportAssertion(codePoint)) {
+                logMessage(LcLevel.ASSERT, null, "Assertion appears at %s with message: %s", null, codePoint, message);
+            }
+        } else if (shouldReportAssertion(name + ": " + message)) {
+            logMessage(LcLevel.ASSERT, null, "Assertion appears with message: %s", null, message);
+        }
     }
 
     /**
@@ -222,7 +977,38 @@ public class LcGroup {
      * @param throwable Exception that is describing assertion.
      */
     public void assertion(@NonNull final Throwable throwable) {
-        logMessage(LcLevel.ASSERT, "Assertion appears at %s", throwable, Lc.getCodePoint(null, 2));
+        if (stackWalkingEnabled) {
+            final String codePoint = Lc.getCodePoint(null, 2);
+            if (shouldReportAssertion(codePoint)) {
+                logMessage(LcLevel.ASSERT, null, "Assertion appears at %s", throwable, codePoint);
+            }
+        } else {
+            throwableAssertion(throwable);
+        }
+    }
+
+    /**
+     * Processes assertion which is identified by its throwable only. It is used if assertion is processed not at the place of code
+     * where it has appeared (e.g. after cutting of causes or on main thread) so code point of caller is the same for all of them.
+     *
+     * @param throwable Exception that is describing assertion.
+     */
+    void throwableAssertion(@NonNull final Throwable throwable) {
+        if (shouldReportAssertion(createFingerprint(throwable))) {
+            logMessage(LcLevel.ASSERT, null, "Assertion appears", throwable, NO_ARGS);
+        }
+    }
+
+    private boolean shouldReportAssertion(@NonNull final String fingerprint) {
+        final AssertionAggregator assertionAggregator = Lc.getAssertionAggregator();
+        return assertionAggregator == null || Lc.isCrashOnAssertions() || assertionAggregator.onAssertion(this, fingerprint);
+    }
+
+    // exception already has stack trace so there is no need to walk stack to identify place of code
+    @NonNull
+    private String createFingerprint(@NonNull final Throwable throwable) {
+        final StackTraceElement[] stackTrace = throwable.getStackTrace();
+        return throwable.getClass().getName() + (stackTrace.length > 0 ? " at " + stackTrace[0] : "");
     }
 
 }
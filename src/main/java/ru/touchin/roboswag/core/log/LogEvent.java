@@ -0,0 +1,303 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.log;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import ru.touchin.roboswag.core.utils.ThreadLocalValue;
+
+/**
+ * Log message coming from {@link LcGroup} with raw info about it (time, thread, structured fields etc.).
+ * Formatting of it is deferred until {@link LogProcessor} really needs text of message.
+ * Event object could be reused after processing so {@link LogProcessor} shouldn't keep reference to it.
+ */
+public class LogEvent {
+
+    private static final ThreadLocalValue<StringBuilder> MESSAGE_BUILDER = new ThreadLocalValue<>(StringBuilder::new);
+    private static final ThreadLocalValue<TimeFormatter> TIME_FORMATTER = new ThreadLocalValue<>(TimeFormatter::new);
+
+    @NonNull
+    private LcGroup group;
+    @NonNull
+    private LcLevel level;
+    @NonNull
+    private String tag;
+    @Nullable
+    private String message;
+    @Nullable
+    private Throwable throwable;
+    private long timeMillis;
+    @NonNull
+    private Thread thread;
+    // keys and values of structured fields one after another
+    @Nullable
+    private Object[] fields;
+
+    public LogEvent(@NonNull final LcGroup group, @NonNull final LcLevel level, @NonNull final String tag,
+                    @Nullable final String message, @Nullable final Throwable throwable,
+                    final long timeMillis, @NonNull final Thread thread) {
+        this(group, level, tag, message, throwable, timeMillis, thread, null);
+    }
+
+    public LogEvent(@NonNull final LcGroup group, @NonNull final LcLevel level, @NonNull final String tag,
+                    @Nullable final String message, @Nullable final Throwable throwable,
+                    final long timeMillis, @NonNull final Thread thread, @Nullable final Object[] fields) {
+        this.group = group;
+        this.level = level;
+        this.tag = tag;
+        this.message = message;
+        this.throwable = throwable;
+        this.timeMillis = timeMillis;
+        this.thread = thread;
+        this.fields = fields;
+    }
+
+    // empty event to be filled later by set()
+    @SuppressWarnings("ConstantConditions")
+    LogEvent() {
+        this(null, null, null, null, null, 0, null, null);
+    }
+
+    /**
+     * Sets all fields of event.
+     *
+     * @param group      Group of message;
+     * @param level      Level of message;
+     * @param tag        Tag of message;
+     * @param message    Formatted message;
+     * @param throwable  Exception to log;
+     * @param timeMillis Time of message;
+     * @param thread     Thread where message was logged;
+     * @param fields     Keys and values of structured fields one after another.
+     */
+    void set(@NonNull final LcGroup group, @NonNull final LcLevel level, @NonNull final String tag,
+             @Nullable final String message, @Nullable final Throwable throwable,
+             final long timeMillis, @NonNull final Thread thread, @Nullable final Object[] fields) {
+        this.group = group;
+        this.level = level;
+        this.tag = tag;
+        this.message = message;
+        this.throwable = throwable;
+        this.timeMillis = timeMillis;
+        this.thread = thread;
+        this.fields = fields;
+    }
+
+    /**
+     * Clears references to objects of event.
+     */
+    @SuppressWarnings("ConstantConditions")
+    void clear() {
+        set(null, null, null, null, null, 0, null, null);
+    }
+
+    // raw fields are needed to copy event without allocations
+    @Nullable
+    Object[] getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns {@link LcGroup} where message came from.
+     *
+     * @return Group of message.
+     */
+    @NonNull
+    public LcGroup getGroup() {
+        return group;
+    }
+
+    /**
+     * Returns level (priority) of message.
+     *
+     * @return Level of message.
+     */
+    @NonNull
+    public LcLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns string mark of message.
+     *
+     * @return Tag of message.
+     */
+    @NonNull
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Returns formatted message as it was passed to {@link LcGroup} without time, thread etc.
+     *
+     * @return Message or null if there is only exception to log.
+     */
+    @Nullable
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns exception to log.
+     *
+     * @return Exception.
+     */
+    @Nullable
+    public Throwable getThrowable() {
+        return throwable;
+    }
+
+    /**
+     * Returns time when message was logged.
+     *
+     * @return Time in milliseconds since epoch.
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Returns thread where message was logged.
+     *
+     * @return Thread of message.
+     */
+    @NonNull
+    public Thread getThread() {
+        return thread;
+    }
+
+    /**
+     * Returns count of structured fields of message.
+     *
+     * @return Count of fields.
+     */
+    public int getFieldsCount() {
+        return fields != null ? fields.length / 2 : 0;
+    }
+
+    /**
+     * Returns key of structured field.
+     *
+     * @param index Index of field;
+     * @return Key of field.
+     */
+    @NonNull
+    public String getFieldKey(final int index) {
+        return String.valueOf(fields[index * 2]);
+    }
+
+    /**
+     * Returns value of structured field.
+     *
+     * @param index Index of field;
+     * @return Value of field.
+     */
+    @Nullable
+    public Object getFieldValue(final int index) {
+        return fields[index * 2 + 1];
+    }
+
+    /**
+     * Appends full text of message (time, thread, group and message itself) to builder.
+     *
+     * @param builder Builder to append message to.
+     */
+    public void appendFullMessage(@NonNull final StringBuilder builder) {
+        TIME_FORMATTER.get().append(builder, timeMillis);
+        builder.append(' ').append(thread.getName()).append(' ').append(group.getName());
+        if (message != null) {
+            builder.append(' ').append(message);
+        }
+        final int fieldsCount = getFieldsCount();
+        for (int i = 0; i < fieldsCount; i++) {
+            builder.append(i == 0 ? " {" : ", ").append(getFieldKey(i)).append('=').append(getFieldValue(i));
+        }
+        if (fieldsCount > 0) {
+            builder.append('}');
+        }
+    }
+
+    /**
+     * Returns full text of message (time, thread, group and message itself).
+     *
+     * @return Text of message.
+     */
+    @NonNull
+    public String createFullMessage() {
+        final StringBuilder builder = MESSAGE_BUILDER.get();
+        builder.setLength(0);
+        appendFullMessage(builder);
+        return builder.toString();
+    }
+
+    /**
+     * Formatter of time in HH:mm:ss.SSS format which is caching formatted part of last second.
+     * It is not thread-safe so it should be used per thread.
+     */
+    private static class TimeFormatter {
+
+        private static final long MILLIS_IN_SECOND = TimeUnit.SECONDS.toMillis(1);
+        private static final long SECONDS_IN_DAY = TimeUnit.DAYS.toSeconds(1);
+        private static final int SECONDS_IN_HOUR = (int) TimeUnit.HOURS.toSeconds(1);
+        private static final int SECONDS_IN_MINUTE = (int) TimeUnit.MINUTES.toSeconds(1);
+        private static final int DIGITS_MULTIPLIER = 10;
+
+        @NonNull
+        private final char[] secondChars = new char[9];
+        private long cachedSecond = Long.MIN_VALUE;
+
+        public void append(@NonNull final StringBuilder builder, final long timeMillis) {
+            final long second = floorDiv(timeMillis, MILLIS_IN_SECOND);
+            if (second != cachedSecond) {
+                final long localSecond = floorDiv(timeMillis + TimeZone.getDefault().getOffset(timeMillis), MILLIS_IN_SECOND);
+                final int secondOfDay = (int) (localSecond - floorDiv(localSecond, SECONDS_IN_DAY) * SECONDS_IN_DAY);
+                writeTwoDigits(secondChars, 0, secondOfDay / SECONDS_IN_HOUR);
+                secondChars[2] = ':';
+                writeTwoDigits(secondChars, 3, secondOfDay / SECONDS_IN_MINUTE % SECONDS_IN_MINUTE);
+                secondChars[5] = ':';
+                writeTwoDigits(secondChars, 6, secondOfDay % SECONDS_IN_MINUTE);
+                secondChars[8] = '.';
+                cachedSecond = second;
+            }
+            final int millis = (int) (timeMillis - second * MILLIS_IN_SECOND);
+            builder.append(secondChars)
+                    .append((char) ('0' + millis / (DIGITS_MULTIPLIER * DIGITS_MULTIPLIER)))
+                    .append((char) ('0' + millis / DIGITS_MULTIPLIER % DIGITS_MULTIPLIER))
+                    .append((char) ('0' + millis % DIGITS_MULTIPLIER));
+        }
+
+        // Math.floorDiv is not available on old Android versions
+        private long floorDiv(final long value, final long divider) {
+            final long result = value / divider;
+            return value % divider < 0 ? result - 1 : result;
+        }
+
+        private void writeTwoDigits(@NonNull final char[] chars, final int offset, final int value) {
+            chars[offset] = (char) ('0' + value / DIGITS_MULTIPLIER);
+            chars[offset + 1] = (char) ('0' + value % DIGITS_MULTIPLIER);
+        }
+
+    }
+
+}
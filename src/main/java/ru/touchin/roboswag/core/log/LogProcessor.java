@@ -37,7 +37,8 @@ public abstract class LogProcessor {
 
     /**
      * Minimum logging level.
-     * Any messages with lower priority won't be passed into {@link #processLogMessage(LcGroup, LcLevel, String, String, Throwable)}.
+     * Any messages with lower priority won't be passed into {@link #processLogMessage(LcGroup, LcLevel, String, String, Throwable)}
+     * if it is not overridden for specific group by {@link LcGroup#setMinLogLevel(LcLevel)}.
      *
      * @return Minimum log level represented by {@link LcLevel} object.
      */
@@ -58,4 +59,51 @@ public abstract class LogProcessor {
     public abstract void processLogMessage(@NonNull final LcGroup group, @NonNull final LcLevel level,
                                            @NonNull final String tag, @NonNull final String message, @Nullable final Throwable throwable);
 
+    /**
+     * Entry point of all log messages coming from {@link LcGroup} with level higher or equals {@link #getMinLogLevel()}.
+     * By default it is creating {@link LogEvent} and passing it to {@link #processStructured(LogEvent)} if there are structured fields
+     * or to {@link #processLogEvent(LogEvent)} otherwise.
+     * Override it to store raw info about message without creating event object (e.g. into preallocated buffer).
+     *
+     * @param group     {@link LcGroup} where log message came from;
+     * @param level     {@link LcLevel} level (priority) of message;
+     * @param tag       String mark of message;
+     * @param message   Not formatted message or null if there is only throwable;
+     * @param throwable Exception to log;
+     * @param fields    Keys and values of structured fields one after another or null if there are no fields.
+     */
+    public void processRawMessage(@NonNull final LcGroup group, @NonNull final LcLevel level, @NonNull final String tag,
+                                  @Nullable final String message, @Nullable final Throwable throwable, @Nullable final Object[] fields) {
+        final LogEvent event = new LogEvent(group, level, tag, message, throwable,
+                System.currentTimeMillis(), Thread.currentThread(), fields);
+        if (fields != null) {
+            processStructured(event);
+        } else {
+            processLogEvent(event);
+        }
+    }
+
+    /**
+     * Processes structured log message coming from {@link LcGroup} with level higher or equals {@link #getMinLogLevel()}.
+     * By default it is formatting full text of message and passing it
+     * to {@link #processLogMessage(LcGroup, LcLevel, String, String, Throwable)}.
+     * Override it to use raw fields of event without formatting or to defer formatting (e.g. to other thread).
+     *
+     * @param event Log event. It could be reused after method returns.
+     */
+    public void processLogEvent(@NonNull final LogEvent event) {
+        processLogMessage(event.getGroup(), event.getLevel(), event.getTag(), event.createFullMessage(), event.getThrowable());
+    }
+
+    /**
+     * Processes log message with structured fields (see {@link LogEvent#getFieldsCount()}) coming from {@link LcGroup}.
+     * Message is not formatted so text sinks are formatting it only when they need it and binary sinks could encode fields compactly.
+     * By default it is passing event to {@link #processLogEvent(LogEvent)} where fields are formatted as part of text.
+     *
+     * @param event Log event with structured fields. It could be reused after method returns.
+     */
+    public void processStructured(@NonNull final LogEvent event) {
+        processLogEvent(event);
+    }
+
 }
\ No newline at end of file
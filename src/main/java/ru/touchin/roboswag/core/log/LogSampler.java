@@ -0,0 +1,40 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.log;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Object which is making decision to log or skip message of {@link LcGroup} to limit count of logged messages.
+ * It is called only for messages which are passed level check and never called for assertions.
+ */
+public interface LogSampler {
+
+    /**
+     * Returns if message should be logged.
+     *
+     * @param group {@link LcGroup} where log message came from;
+     * @param level {@link LcLevel} level (priority) of message;
+     * @param tag   Tag of message which is representing call site;
+     * @return True if message should be logged.
+     */
+    boolean shouldLog(@NonNull LcGroup group, @NonNull LcLevel level, @NonNull String tag);
+
+}
@@ -0,0 +1,64 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.log;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Precomputed place of code where log messages are coming from.
+ * It is usually stored in static field and passed to {@link LcGroup} log methods so tag of message is not calculated by stack walking.
+ */
+public final class LogSite {
+
+    /**
+     * Creates {@link LogSite} with simple name of class as tag.
+     *
+     * @param siteClass Class where messages are logging from;
+     * @return Log site.
+     */
+    @NonNull
+    public static LogSite forClass(@NonNull final Class<?> siteClass) {
+        return new LogSite(siteClass.getSimpleName());
+    }
+
+    @NonNull
+    private final String tag;
+
+    public LogSite(@NonNull final String tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * Returns tag of log messages coming from this site.
+     *
+     * @return Tag.
+     */
+    @NonNull
+    public String getTag() {
+        return tag;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return tag;
+    }
+
+}
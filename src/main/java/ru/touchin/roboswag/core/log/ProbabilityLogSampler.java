@@ -0,0 +1,51 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.log;
+
+import android.support.annotation.NonNull;
+
+import java.util.Random;
+
+import ru.touchin.roboswag.core.utils.ThreadLocalValue;
+
+/**
+ * {@link LogSampler} which is logging random part of messages.
+ */
+public class ProbabilityLogSampler implements LogSampler {
+
+    private static final ThreadLocalValue<Random> RANDOM = new ThreadLocalValue<>(Random::new);
+
+    private final float probability;
+
+    /**
+     * Creates sampler which is logging messages with specific probability.
+     *
+     * @param probability Probability (from 0 to 1) of message to be logged.
+     */
+    public ProbabilityLogSampler(final float probability) {
+        this.probability = probability;
+    }
+
+    @Override
+    public boolean shouldLog(@NonNull final LcGroup group, @NonNull final LcLevel level, @NonNull final String tag) {
+        return RANDOM.get().nextFloat() < probability;
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.log;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LogSampler} which is limiting count of messages per second with same tag.
+ * Tag is the call site only if stack walking is enabled (see {@link LcGroup#setStackWalkingEnabled(boolean)})
+ * or message is logged with {@link LogSite}. Otherwise tag is the name of group so limit is applied to whole group.
+ */
+public class RateLimitLogSampler implements LogSampler {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @NonNull
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final int maxMessagesPerSecond;
+
+    public RateLimitLogSampler(final int maxMessagesPerSecond) {
+        this.maxMessagesPerSecond = maxMessagesPerSecond;
+    }
+
+    @Override
+    public boolean shouldLog(@NonNull final LcGroup group, @NonNull final LcLevel level, @NonNull final String tag) {
+        Window window = windows.get(tag);
+        if (window == null) {
+            final Window newWindow = new Window();
+            final Window existingWindow = windows.putIfAbsent(tag, newWindow);
+            window = existingWindow != null ? existingWindow : newWindow;
+        }
+        return window.tryAcquire(maxMessagesPerSecond);
+    }
+
+    private static class Window {
+
+        private long startNanoTime = System.nanoTime();
+        private int count;
+
+        public synchronized boolean tryAcquire(final int maxCount) {
+            final long nanoTime = System.nanoTime();
+            if (nanoTime - startNanoTime >= WINDOW_NANOS) {
+                startNanoTime = nanoTime;
+                count = 0;
+            }
+            if (count >= maxCount) {
+                return false;
+            }
+            count++;
+            return true;
+        }
+
+    }
+
+}
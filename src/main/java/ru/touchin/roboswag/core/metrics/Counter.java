@@ -0,0 +1,94 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.metrics;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter which could be incremented concurrently from many threads.
+ * Value is spread over several cells selected by thread ID so threads are rarely contending on same cell.
+ * Cells are padded to be placed on different cache lines so increments of different threads do not invalidate each other.
+ */
+public class Counter {
+
+    private static final int MAX_STRIPES_COUNT = 16;
+    // 8 longs are filling 64-byte cache line
+    private static final int CELL_PADDING = 8;
+
+    private static int calculateStripesCount() {
+        final int processorsCount = Runtime.getRuntime().availableProcessors();
+        int result = 1;
+        while (result < processorsCount && result < MAX_STRIPES_COUNT) {
+            result <<= 1;
+        }
+        return result;
+    }
+
+    private final int stripesMask;
+    @NonNull
+    private final AtomicLongArray cells;
+
+    public Counter() {
+        final int stripesCount = calculateStripesCount();
+        stripesMask = stripesCount - 1;
+        cells = new AtomicLongArray(stripesCount * CELL_PADDING);
+    }
+
+    /**
+     * Increments counter by one.
+     */
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * Adds value to counter.
+     *
+     * @param delta Value to add.
+     */
+    public void add(final long delta) {
+        cells.getAndAdd(((int) Thread.currentThread().getId() & stripesMask) * CELL_PADDING, delta);
+    }
+
+    /**
+     * Returns current value of counter. It is not an atomic snapshot if counter is changing concurrently.
+     *
+     * @return Sum of all increments.
+     */
+    public long get() {
+        long result = 0;
+        for (int i = 0; i < cells.length(); i += CELL_PADDING) {
+            result += cells.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Resets value of counter to zero.
+     */
+    public void reset() {
+        for (int i = 0; i < cells.length(); i += CELL_PADDING) {
+            cells.set(i, 0);
+        }
+    }
+
+}
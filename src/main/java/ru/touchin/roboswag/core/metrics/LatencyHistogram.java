@@ -0,0 +1,170 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.metrics;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in nanoseconds with HDR-like log-linear buckets:
+ * values less than {@link #SUB_BUCKETS_COUNT} are counted exactly and each next power of two range is split into
+ * {@link #SUB_BUCKETS_COUNT}/2 linear buckets so relative error of percentiles is less than 1/16 for any value.
+ * Recording is lock-free and does not allocate so it could be used on hot paths.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS_COUNT = SUB_BUCKETS_COUNT / 2;
+    private static final int BUCKETS_COUNT = SUB_BUCKETS_COUNT + (Long.SIZE - 1 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS_COUNT;
+    private static final double MAX_PERCENTILE = 100.0;
+
+    private static int getBucketIndex(final long value) {
+        if (value < SUB_BUCKETS_COUNT) {
+            return (int) value;
+        }
+        final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKETS_COUNT + (shift - 1) * HALF_SUB_BUCKETS_COUNT + (int) (value >>> shift) - HALF_SUB_BUCKETS_COUNT;
+    }
+
+    private static long getBucketHighestValue(final int index) {
+        if (index < SUB_BUCKETS_COUNT) {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKETS_COUNT) / HALF_SUB_BUCKETS_COUNT + 1;
+        final long subBucket = (index - SUB_BUCKETS_COUNT) % HALF_SUB_BUCKETS_COUNT + HALF_SUB_BUCKETS_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    @NonNull
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS_COUNT);
+    @NonNull
+    private final AtomicLong count = new AtomicLong();
+    @NonNull
+    private final AtomicLong totalNanos = new AtomicLong();
+    @NonNull
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records duration.
+     *
+     * @param durationNanos Duration in nanoseconds. Negative values are counted as zero.
+     */
+    public void recordNanos(final long durationNanos) {
+        final long value = durationNanos > 0 ? durationNanos : 0;
+        buckets.getAndIncrement(getBucketIndex(value));
+        count.getAndIncrement();
+        totalNanos.getAndAdd(value);
+        long currentMax = maxNanos.get();
+        while (value > currentMax && !maxNanos.compareAndSet(currentMax, value)) {
+            currentMax = maxNanos.get();
+        }
+    }
+
+    /**
+     * Records duration.
+     *
+     * @param duration Duration;
+     * @param timeUnit Time unit of duration.
+     */
+    public void record(final long duration, @NonNull final TimeUnit timeUnit) {
+        recordNanos(timeUnit.toNanos(duration));
+    }
+
+    /**
+     * Returns count of recorded durations.
+     *
+     * @return Count of durations.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns sum of recorded durations.
+     *
+     * @return Sum in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    /**
+     * Returns max recorded duration.
+     *
+     * @return Max duration in nanoseconds or 0 if nothing was recorded.
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns mean of recorded durations.
+     *
+     * @return Mean duration in nanoseconds or 0 if nothing was recorded.
+     */
+    public long getMeanNanos() {
+        final long currentCount = count.get();
+        return currentCount > 0 ? totalNanos.get() / currentCount : 0;
+    }
+
+    /**
+     * Returns duration which is greater or equal than specific percent of recorded durations.
+     * Result is the highest value of bucket so it is never less than actual percentile.
+     *
+     * @param percentile Percentile from 0 to 100 (e.g. 99.9);
+     * @return Duration in nanoseconds or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        long totalCount = 0;
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            totalCount += buckets.get(i);
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+        final double limitedPercentile = Math.max(0, Math.min(percentile, MAX_PERCENTILE));
+        final long targetCount = Math.max(1, (long) Math.ceil(totalCount * limitedPercentile / MAX_PERCENTILE));
+        long accumulatedCount = 0;
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            accumulatedCount += buckets.get(i);
+            if (accumulatedCount >= targetCount) {
+                return Math.min(getBucketHighestValue(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    /**
+     * Resets all recorded durations. It is not atomic if durations are recording concurrently.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.metrics;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Entry point of metrics collected by library (storables, lists diffs, pages loading, logging).
+ * Metrics are disabled by default and enabled by setting {@link MetricsRegistry}.
+ * Disabled metrics are costing one volatile read per call without calls of {@link System#nanoTime()} and allocations.
+ */
+public final class Metrics {
+
+    /**
+     * Value returned by {@link #startTiming()} if metrics are disabled.
+     */
+    public static final long NOT_TIMED = Long.MIN_VALUE;
+
+    @Nullable
+    private static volatile MetricsRegistry registry;
+
+    /**
+     * Returns if metrics are collecting.
+     *
+     * @return True if registry is set.
+     */
+    public static boolean isEnabled() {
+        return registry != null;
+    }
+
+    /**
+     * Returns registry where metrics are collecting.
+     *
+     * @return Registry or null if metrics are disabled.
+     */
+    @Nullable
+    public static MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Sets registry where metrics should be collected.
+     *
+     * @param registry Registry or null to disable metrics.
+     */
+    public static void setRegistry(@Nullable final MetricsRegistry registry) {
+        Metrics.registry = registry;
+    }
+
+    /**
+     * Increments counter if metrics are enabled.
+     *
+     * @param counterName Name of counter.
+     */
+    public static void increment(@NonNull final String counterName) {
+        final MetricsRegistry currentRegistry = registry;
+        if (currentRegistry != null) {
+            currentRegistry.getCounter(counterName).increment();
+        }
+    }
+
+    /**
+     * Returns start time of timed operation which should be passed into {@link #recordTiming(String, long)} after operation.
+     *
+     * @return {@link System#nanoTime()} or {@link #NOT_TIMED} if metrics are disabled.
+     */
+    public static long startTiming() {
+        return registry != null ? System.nanoTime() : NOT_TIMED;
+    }
+
+    /**
+     * Records duration of timed operation into histogram.
+     *
+     * @param histogramName Name of histogram;
+     * @param startNanoTime Value returned by {@link #startTiming()} before operation.
+     */
+    public static void recordTiming(@NonNull final String histogramName, final long startNanoTime) {
+        if (startNanoTime == NOT_TIMED) {
+            return;
+        }
+        recordNanos(histogramName, System.nanoTime() - startNanoTime);
+    }
+
+    /**
+     * Records duration into histogram if metrics are enabled.
+     *
+     * @param histogramName Name of histogram;
+     * @param durationNanos Duration in nanoseconds.
+     */
+    public static void recordNanos(@NonNull final String histogramName, final long durationNanos) {
+        final MetricsRegistry currentRegistry = registry;
+        if (currentRegistry != null) {
+            currentRegistry.getHistogram(histogramName).recordNanos(durationNanos);
+        }
+    }
+
+    private Metrics() {
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.metrics;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Object which is receiving values of metrics from {@link MetricsRegistry#export(MetricsExporter)}
+ * to send them to logs, analytics or monitoring system.
+ */
+public interface MetricsExporter {
+
+    /**
+     * Exports value of counter.
+     *
+     * @param name  Name of counter;
+     * @param value Current value of counter.
+     */
+    void exportCounter(@NonNull String name, long value);
+
+    /**
+     * Exports histogram of durations. Histogram is live so it could change during export.
+     *
+     * @param name      Name of histogram;
+     * @param histogram Histogram to read values from.
+     */
+    void exportHistogram(@NonNull String name, @NonNull LatencyHistogram histogram);
+
+}
@@ -0,0 +1,98 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.metrics;
+
+import android.support.annotation.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Set of named counters and histograms. Metrics are created on first access and live as long as registry.
+ * To collect metrics of library set registry by {@link Metrics#setRegistry(MetricsRegistry)}.
+ */
+public class MetricsRegistry {
+
+    @NonNull
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    @NonNull
+    private final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Returns counter by name. Creates it if there is no counter with such name.
+     *
+     * @param name Name of counter;
+     * @return Counter.
+     */
+    @NonNull
+    public Counter getCounter(@NonNull final String name) {
+        final Counter counter = counters.get(name);
+        if (counter != null) {
+            return counter;
+        }
+        final Counter newCounter = new Counter();
+        final Counter existingCounter = counters.putIfAbsent(name, newCounter);
+        return existingCounter != null ? existingCounter : newCounter;
+    }
+
+    /**
+     * Returns histogram by name. Creates it if there is no histogram with such name.
+     *
+     * @param name Name of histogram;
+     * @return Histogram.
+     */
+    @NonNull
+    public LatencyHistogram getHistogram(@NonNull final String name) {
+        final LatencyHistogram histogram = histograms.get(name);
+        if (histogram != null) {
+            return histogram;
+        }
+        final LatencyHistogram newHistogram = new LatencyHistogram();
+        final LatencyHistogram existingHistogram = histograms.putIfAbsent(name, newHistogram);
+        return existingHistogram != null ? existingHistogram : newHistogram;
+    }
+
+    /**
+     * Passes all metrics to exporter.
+     *
+     * @param exporter Exporter of metrics.
+     */
+    public void export(@NonNull final MetricsExporter exporter) {
+        for (final Map.Entry<String, Counter> entry : counters.entrySet()) {
+            exporter.exportCounter(entry.getKey(), entry.getValue().get());
+        }
+        for (final Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            exporter.exportHistogram(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Resets all metrics to zero.
+     */
+    public void reset() {
+        for (final Counter counter : counters.values()) {
+            counter.reset();
+        }
+        for (final LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+}
@@ -23,12 +23,17 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
 
+import ru.touchin.roboswag.core.utils.BinaryCodec;
 import ru.touchin.roboswag.core.utils.ObjectUtils;
 import ru.touchin.roboswag.core.utils.Optional;
+import ru.touchin.roboswag.core.utils.SerializationUtils;
 import rx.Observable;
 import rx.subjects.BehaviorSubject;
 
@@ -42,9 +47,15 @@ import rx.subjects.BehaviorSubject;
  */
 public abstract class BaseChangeable<TValue, TReturnValue> implements Serializable {
 
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
+
+    private static final int SERIALIZATION_FORMAT_VERSION = 1;
+    private static final int SERIALIZATION_MODE_JAVA = 0;
+    private static final int SERIALIZATION_MODE_CODEC = 1;
 
     private transient BehaviorSubject<Optional<TValue>> valueSubject;
+    @Nullable
+    private transient BinaryCodec<TValue> valueCodec;
 
     public BaseChangeable(@Nullable final TValue defaultValue) {
         valueSubject = BehaviorSubject.create(new Optional<>(defaultValue));
@@ -64,6 +75,15 @@ public abstract class BaseChangeable<TValue, TReturnValue> implements Serializab
         valueSubject.onNext(new Optional<>(value));
     }
 
+    /**
+     * Sets codec to serialize value in compact binary form instead of Java serialization of value.
+     *
+     * @param valueCodec Codec of value or null to use Java serialization.
+     */
+    public void setValueCodec(@Nullable final BinaryCodec<TValue> valueCodec) {
+        this.valueCodec = valueCodec;
+    }
+
     /**
      * Returns current value.
      *
@@ -83,12 +103,40 @@ public abstract class BaseChangeable<TValue, TReturnValue> implements Serializab
     public abstract Observable<TReturnValue> observe();
 
     private void writeObject(@NonNull final ObjectOutputStream outputStream) throws IOException {
-        outputStream.writeObject(valueSubject.getValue());
+        final TValue value = valueSubject.getValue().get();
+        outputStream.writeByte(SERIALIZATION_FORMAT_VERSION);
+        if (valueCodec != null) {
+            outputStream.writeByte(SERIALIZATION_MODE_CODEC);
+            outputStream.writeObject(valueCodec);
+            SerializationUtils.writeRecords(outputStream, valueCodec,
+                    value != null ? Collections.singletonList(value) : Collections.emptyList());
+        } else {
+            outputStream.writeByte(SERIALIZATION_MODE_JAVA);
+            outputStream.writeObject(value);
+        }
     }
 
     @SuppressWarnings("unchecked")
     private void readObject(@NonNull final ObjectInputStream inputStream) throws IOException, ClassNotFoundException {
-        valueSubject = BehaviorSubject.create((Optional<TValue>) inputStream.readObject());
+        final int formatVersion = inputStream.readByte();
+        if (formatVersion != SERIALIZATION_FORMAT_VERSION) {
+            throw new InvalidObjectException("Unsupported format version " + formatVersion);
+        }
+        final int mode = inputStream.readByte();
+        final TValue value;
+        switch (mode) {
+            case SERIALIZATION_MODE_JAVA:
+                value = (TValue) inputStream.readObject();
+                break;
+            case SERIALIZATION_MODE_CODEC:
+                valueCodec = (BinaryCodec<TValue>) inputStream.readObject();
+                final List<TValue> values = SerializationUtils.readRecords(inputStream, valueCodec);
+                value = values.isEmpty() ? null : values.get(0);
+                break;
+            default:
+                throw new InvalidObjectException("Unknown serialization mode " + mode);
+        }
+        valueSubject = BehaviorSubject.create(new Optional<>(value));
     }
 
     @Override
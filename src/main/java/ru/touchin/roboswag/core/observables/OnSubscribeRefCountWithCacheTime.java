@@ -24,6 +24,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
+import ru.touchin.roboswag.core.metrics.Metrics;
 import rx.Observable.OnSubscribe;
 import rx.Scheduler;
 import rx.Subscriber;
@@ -45,6 +46,11 @@ import rx.subscriptions.Subscriptions;
 //AvoidUsingVolatile,CompareObjectsWithEquals: from OnSubscribeRefCount code
 public final class OnSubscribeRefCountWithCacheTime<T> implements OnSubscribe<T> {
 
+    /**
+     * Name of {@link Metrics} counter of disconnections from source after cache time is over.
+     */
+    public static final String EVICTIONS_METRIC_NAME = "refCountWithCacheTime.evictions";
+
     @NonNull
     private final ConnectableObservable<? extends T> source;
     @NonNull
@@ -188,6 +194,7 @@ public final class OnSubscribeRefCountWithCacheTime<T> implements OnSubscribe<T>
                                     ((Subscription) source).unsubscribe();
                                 }
                                 baseSubscription.unsubscribe();
+                                Metrics.increment(EVICTIONS_METRIC_NAME);
                                 // need a new baseSubscription because once
                                 // unsubscribed stays that way
                                 baseSubscription = new CompositeSubscription();
@@ -0,0 +1,324 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import ru.touchin.roboswag.core.observables.collections.changes.ItemKeyProvider;
+
+/**
+ * Index of items positions by their keys which is used by {@link ObservableList}.
+ * Items are kept in order-statistic tree (implicit treap) so positions shifts caused by inserts/removes/moves cost O(log n)
+ * and position of item could be found by it's key in O(log n) too.
+ * It is not thread-safe so it should be accessed under lock of owner collection.
+ *
+ * @param <TItem> Type of indexed items.
+ */
+class ItemsPositionIndex<TItem> {
+
+    @NonNull
+    private final ItemKeyProvider<TItem> keyProvider;
+    @NonNull
+    private final Map<Object, Node> nodesByKey = new HashMap<>();
+    @NonNull
+    private final Random random = new Random();
+    @Nullable
+    private Node root;
+    // results of last split operation
+    @Nullable
+    private Node splitLeft;
+    @Nullable
+    private Node splitRight;
+
+    ItemsPositionIndex(@NonNull final ItemKeyProvider<TItem> keyProvider, @NonNull final Collection<TItem> items) {
+        this.keyProvider = keyProvider;
+        reset(items);
+    }
+
+    private static int size(@Nullable final Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static void updateSize(@NonNull final Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    /**
+     * Returns provider of keys of indexed items.
+     *
+     * @return Keys provider.
+     */
+    @NonNull
+    ItemKeyProvider<TItem> getKeyProvider() {
+        return keyProvider;
+    }
+
+    /**
+     * Rebuilds index from scratch.
+     *
+     * @param items Items to index.
+     */
+    void reset(@NonNull final Collection<TItem> items) {
+        nodesByKey.clear();
+        root = null;
+        root = mergeAll(items);
+    }
+
+    /**
+     * Indexes items inserted at specific position.
+     *
+     * @param position Position of first inserted item;
+     * @param items    Inserted items.
+     */
+    void insert(final int position, @NonNull final Collection<TItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        final Node inserted = mergeAll(items);
+        split(root, position);
+        final Node right = splitRight;
+        setRoot(merge(merge(splitLeft, inserted), right));
+    }
+
+    /**
+     * Removes items from index.
+     *
+     * @param position Position of first removed item;
+     * @param count    Count of removed items.
+     */
+    void remove(final int position, final int count) {
+        if (count <= 0) {
+            return;
+        }
+        split(root, position);
+        final Node left = splitLeft;
+        split(splitRight, count);
+        unregister(splitLeft);
+        setRoot(merge(left, splitRight));
+    }
+
+    /**
+     * Moves item in index.
+     *
+     * @param fromPosition Position of item before move;
+     * @param toPosition   Position of item after move.
+     */
+    void move(final int fromPosition, final int toPosition) {
+        split(root, fromPosition);
+        final Node left = splitLeft;
+        split(splitRight, 1);
+        final Node moved = splitLeft;
+        final Node rest = merge(left, splitRight);
+        if (rest != null) {
+            rest.parent = null;
+        }
+        split(rest, toPosition);
+        final Node right = splitRight;
+        setRoot(merge(merge(splitLeft, moved), right));
+    }
+
+    /**
+     * Reindexes items replaced at specific position.
+     *
+     * @param position Position of first replaced item;
+     * @param items    New items.
+     */
+    void update(final int position, @NonNull final Collection<TItem> items) {
+        remove(position, items.size());
+        insert(position, items);
+    }
+
+    /**
+     * Returns first position of item with specific key.
+     *
+     * @param key Key of item;
+     * @return Position of item or -1 if there is no such item.
+     */
+    int indexOfKey(@NonNull final Object key) {
+        int result = -1;
+        Node node = nodesByKey.get(key);
+        while (node != null) {
+            final int position = positionOf(node);
+            if (result < 0 || position < result) {
+                result = position;
+            }
+            node = node.nextWithSameKey;
+        }
+        return result;
+    }
+
+    /**
+     * Returns last position of item with specific key searching backward from specific position.
+     *
+     * @param key          Key of item;
+     * @param fromPosition Max position of item to return;
+     * @return Position of item or -1 if there is no such item.
+     */
+    int lastIndexOfKey(@NonNull final Object key, final int fromPosition) {
+        int result = -1;
+        Node node = nodesByKey.get(key);
+        while (node != null) {
+            final int position = positionOf(node);
+            if (position <= fromPosition && position > result) {
+                result = position;
+            }
+            node = node.nextWithSameKey;
+        }
+        return result;
+    }
+
+    private void setRoot(@Nullable final Node root) {
+        this.root = root;
+        if (root != null) {
+            root.parent = null;
+        }
+    }
+
+    private int positionOf(@NonNull final Node node) {
+        int position = size(node.left);
+        Node current = node;
+        while (current.parent != null) {
+            if (current.parent.right == current) {
+                position += size(current.parent.left) + 1;
+            }
+            current = current.parent;
+        }
+        return position;
+    }
+
+    @Nullable
+    private Node mergeAll(@NonNull final Collection<TItem> items) {
+        Node result = null;
+        for (final TItem item : items) {
+            result = merge(result, register(item));
+        }
+        if (result != null) {
+            result.parent = null;
+        }
+        return result;
+    }
+
+    @NonNull
+    private Node register(@NonNull final TItem item) {
+        final Object key = keyProvider.getItemKey(item);
+        final Node node = new Node(key, random.nextInt());
+        node.nextWithSameKey = nodesByKey.put(key, node);
+        return node;
+    }
+
+    private void unregister(@Nullable final Node node) {
+        if (node == null) {
+            return;
+        }
+        unregister(node.left);
+        unregister(node.right);
+        final Node head = nodesByKey.get(node.key);
+        if (head == node) {
+            if (node.nextWithSameKey != null) {
+                nodesByKey.put(node.key, node.nextWithSameKey);
+            } else {
+                nodesByKey.remove(node.key);
+            }
+            return;
+        }
+        Node previous = head;
+        while (previous != null && previous.nextWithSameKey != node) {
+            previous = previous.nextWithSameKey;
+        }
+        if (previous != null) {
+            previous.nextWithSameKey = node.nextWithSameKey;
+        }
+    }
+
+    // splits tree into splitLeft with first 'count' nodes and splitRight with the rest
+    private void split(@Nullable final Node node, final int count) {
+        if (node == null) {
+            splitLeft = null;
+            splitRight = null;
+            return;
+        }
+        if (count <= size(node.left)) {
+            split(node.left, count);
+            node.left = splitRight;
+            if (splitRight != null) {
+                splitRight.parent = node;
+            }
+            splitRight = node;
+        } else {
+            split(node.right, count - size(node.left) - 1);
+            node.right = splitLeft;
+            if (splitLeft != null) {
+                splitLeft.parent = node;
+            }
+            splitLeft = node;
+        }
+        updateSize(node);
+        node.parent = null;
+    }
+
+    @Nullable
+    private Node merge(@Nullable final Node left, @Nullable final Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.right.parent = left;
+            updateSize(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.left.parent = right;
+        updateSize(right);
+        return right;
+    }
+
+    private static class Node {
+
+        @NonNull
+        private final Object key;
+        private final int priority;
+        private int size = 1;
+        @Nullable
+        private Node left;
+        @Nullable
+        private Node right;
+        @Nullable
+        private Node parent;
+        @Nullable
+        private Node nextWithSameKey;
+
+        public Node(@NonNull final Object key, final int priority) {
+            this.key = key;
+            this.priority = priority;
+        }
+
+    }
+
+}
@@ -28,9 +28,12 @@ import java.io.ObjectOutputStream;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import ru.touchin.roboswag.core.android.support.v7.util.ListUpdateCallback;
 import ru.touchin.roboswag.core.observables.collections.changes.Change;
 import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionsChangesCalculator;
 import rx.Emitter;
 import rx.Observable;
 
@@ -51,10 +54,13 @@ public abstract class ObservableCollection<TItem> {
     private transient Observable<Collection<TItem>> itemsObservable;
     @Nullable
     private transient Emitter<? super CollectionChanges<TItem>> changesEmitter;
+    @NonNull
+    private transient List<ListUpdateCallback> changesCallbacks;
 
     public ObservableCollection() {
         this.changesObservable = createChangesObservable();
         this.itemsObservable = createItemsObservable();
+        this.changesCallbacks = new CopyOnWriteArrayList<>();
     }
 
     @NonNull
@@ -111,6 +117,51 @@ public abstract class ObservableCollection<TItem> {
         if (changesEmitter != null) {
             changesEmitter.onNext(new CollectionChanges<>(changesCount, insertedItems, removedItems, changes));
         }
+        for (final ListUpdateCallback changesCallback : changesCallbacks) {
+            for (final Change change : changes) {
+                change.dispatchTo(changesCallback);
+            }
+        }
+    }
+
+    /**
+     * Method to notify that collection have changed by calculator of changes.
+     * If nobody observes {@link #observeChanges()} then changes are dispatched to callbacks
+     * added by {@link #addChangesCallback(ListUpdateCallback)} right from calculator
+     * so neither list of changes nor inserted and removed items are calculated.
+     *
+     * @param calculator Calculator of changes.
+     */
+    protected void notifyAboutChanges(@NonNull final CollectionsChangesCalculator<TItem> calculator) {
+        if (changesEmitter != null) {
+            notifyAboutChanges(calculator.calculateInsertedItems(), calculator.calculateRemovedItems(), calculator.calculateChanges());
+            return;
+        }
+        final ChangesDispatcher dispatcher = new ChangesDispatcher(changesCallbacks);
+        calculator.dispatchChanges(dispatcher);
+        if (dispatcher.hasChanges) {
+            changesCount++;
+        }
+    }
+
+    /**
+     * Adds callback which receives changes of collection synchronously on thread where collection has changed.
+     * Unlike {@link #observeChanges()} it doesn't require changes to be collected into {@link CollectionChanges} objects
+     * so large changes of collection are not allocating intermediate list of changes.
+     *
+     * @param changesCallback Callback to dispatch changes to. Usually wrapped adapter of RecyclerView.
+     */
+    public void addChangesCallback(@NonNull final ListUpdateCallback changesCallback) {
+        changesCallbacks.add(changesCallback);
+    }
+
+    /**
+     * Removes callback added by {@link #addChangesCallback(ListUpdateCallback)}.
+     *
+     * @param changesCallback Callback to remove.
+     */
+    public void removeChangesCallback(@NonNull final ListUpdateCallback changesCallback) {
+        changesCallbacks.remove(changesCallback);
     }
 
     /**
@@ -177,6 +228,54 @@ public abstract class ObservableCollection<TItem> {
         changesCount = inputStream.readInt();
         this.changesObservable = createChangesObservable();
         this.itemsObservable = createItemsObservable();
+        this.changesCallbacks = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Callback that dispatches changes to all added callbacks.
+     */
+    private static class ChangesDispatcher implements ListUpdateCallback {
+
+        @NonNull
+        private final List<ListUpdateCallback> changesCallbacks;
+        private boolean hasChanges;
+
+        public ChangesDispatcher(@NonNull final List<ListUpdateCallback> changesCallbacks) {
+            this.changesCallbacks = changesCallbacks;
+        }
+
+        @Override
+        public void onInserted(final int position, final int count) {
+            hasChanges = true;
+            for (final ListUpdateCallback changesCallback : changesCallbacks) {
+                changesCallback.onInserted(position, count);
+            }
+        }
+
+        @Override
+        public void onRemoved(final int position, final int count) {
+            hasChanges = true;
+            for (final ListUpdateCallback changesCallback : changesCallbacks) {
+                changesCallback.onRemoved(position, count);
+            }
+        }
+
+        @Override
+        public void onMoved(final int fromPosition, final int toPosition) {
+            hasChanges = true;
+            for (final ListUpdateCallback changesCallback : changesCallbacks) {
+                changesCallback.onMoved(fromPosition, toPosition);
+            }
+        }
+
+        @Override
+        public void onChanged(final int position, final int count, @Nullable final Object payload) {
+            hasChanges = true;
+            for (final ListUpdateCallback changesCallback : changesCallbacks) {
+                changesCallback.onChanged(position, count, payload);
+            }
+        }
+
     }
 
 }
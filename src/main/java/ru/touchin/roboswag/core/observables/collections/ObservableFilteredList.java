@@ -113,7 +113,7 @@ public class ObservableFilteredList<TItem> extends ObservableCollection<TItem> {
                     filteredList = filterCollection(items, filter);
                     final DefaultCollectionsChangesCalculator<TItem> calculator
                             = new DefaultCollectionsChangesCalculator<>(oldFilteredList, filteredList, false);
-                    notifyAboutChanges(calculator.calculateInsertedItems(), calculator.calculateRemovedItems(), calculator.calculateChanges());
+                    notifyAboutChanges(calculator);
                 });
     }
 
@@ -23,13 +23,17 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 import ru.touchin.roboswag.core.log.Lc;
 import ru.touchin.roboswag.core.observables.collections.changes.Change;
@@ -37,7 +41,13 @@ import ru.touchin.roboswag.core.observables.collections.changes.ChangePayloadPro
 import ru.touchin.roboswag.core.observables.collections.changes.CollectionsChangesCalculator;
 import ru.touchin.roboswag.core.observables.collections.changes.DefaultCollectionsChangesCalculator;
 import ru.touchin.roboswag.core.observables.collections.changes.DiffCollectionsChangesCalculator;
+import ru.touchin.roboswag.core.observables.collections.changes.DiffEngine;
+import ru.touchin.roboswag.core.observables.collections.changes.ItemKeyProvider;
+import ru.touchin.roboswag.core.observables.collections.changes.KeyedCollectionsChangesCalculator;
 import ru.touchin.roboswag.core.observables.collections.changes.SameItemsPredicate;
+import ru.touchin.roboswag.core.utils.BinaryCodec;
+import ru.touchin.roboswag.core.utils.SerializationUtils;
+import rx.functions.Func1;
 
 /**
  * Created by Gavriil Sitnikov on 23/05/16.
@@ -49,17 +59,43 @@ import ru.touchin.roboswag.core.observables.collections.changes.SameItemsPredica
  */
 public class ObservableList<TItem> extends ObservableCollection<TItem> implements Serializable {
 
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
+
+    // version 1 had no key provider after keys codec
+    private static final int SERIALIZATION_FORMAT_VERSION = 2;
+    private static final int SERIALIZATION_FORMAT_VERSION_WITHOUT_KEY_PROVIDER = 1;
+    private static final int SERIALIZATION_MODE_JAVA = 0;
+    private static final int SERIALIZATION_MODE_ITEMS_CODEC = 1;
+    private static final int SERIALIZATION_MODE_KEYS_CODEC = 2;
 
     @NonNull
     private List<TItem> items;
+    @NonNull
+    private DiffEngine diffEngine = DiffEngine.MYERS;
     private boolean detectMoves;
     @Nullable
     private SameItemsPredicate<TItem> sameItemsPredicate;
     @Nullable
     private ChangePayloadProducer<TItem> changePayloadProducer;
     @Nullable
+    private ItemKeyProvider<TItem> diffItemKeyProvider;
+    @Nullable
     private ObservableList<TItem> diffUtilsSource;
+    @Nullable
+    private Executor diffExecutor;
+    private int diffParallelism;
+    private int diffMaxEditDistance = Integer.MAX_VALUE;
+    private long diffTimeoutMillis;
+    @Nullable
+    private ItemsPositionIndex<TItem> itemsIndex;
+    @Nullable
+    private BinaryCodec<TItem> itemsCodec;
+    @Nullable
+    private BinaryCodec<Object> keysCodec;
+    @Nullable
+    private ItemKeyProvider<TItem> keysCodecKeyProvider;
+    @Nullable
+    private List<Object> pendingKeys;
 
     public ObservableList() {
         super();
@@ -89,6 +125,9 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
     public void add(final int position, @NonNull final TItem item) {
         synchronized (this) {
             items.add(position, item);
+            if (itemsIndex != null) {
+                itemsIndex.insert(position, Collections.singletonList(item));
+            }
             notifyAboutChange(Collections.singletonList(item), Collections.emptyList(), new Change.Inserted(position, 1));
         }
     }
@@ -112,6 +151,9 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
         synchronized (this) {
             if (!itemsToAdd.isEmpty()) {
                 items.addAll(position, itemsToAdd);
+                if (itemsIndex != null) {
+                    itemsIndex.insert(position, itemsToAdd);
+                }
                 notifyAboutChange(new ArrayList<>(itemsToAdd), Collections.emptyList(), new Change.Inserted(position, itemsToAdd.size()));
             }
         }
@@ -133,6 +175,22 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
         }
     }
 
+    /**
+     * Removing item by key. Items index should be enabled by {@link #enableItemsIndex(ItemKeyProvider)}.
+     *
+     * @param key Key of item to remove.
+     */
+    public void removeByKey(@NonNull final Object key) {
+        synchronized (this) {
+            final int position = indexOfKey(key);
+            if (position < 0) {
+                Lc.assertion("Illegal removing of item by key " + key);
+                return;
+            }
+            remove(position);
+        }
+    }
+
     /**
      * Removing item by position.
      *
@@ -157,6 +215,9 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
             for (int i = 0; i < count; i++) {
                 removedItems.add(items.remove(position));
             }
+            if (itemsIndex != null) {
+                itemsIndex.remove(position, count);
+            }
             notifyAboutChange(Collections.emptyList(), removedItems, new Change.Removed(position, count));
         }
     }
@@ -169,11 +230,126 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
             if (!items.isEmpty()) {
                 final List<TItem> removedItems = new ArrayList<>(items);
                 items.clear();
+                if (itemsIndex != null) {
+                    itemsIndex.reset(Collections.emptyList());
+                }
                 notifyAboutChange(Collections.emptyList(), removedItems, new Change.Removed(0, removedItems.size()));
             }
         }
     }
 
+    /**
+     * Moving item from one position to another.
+     *
+     * @param fromPosition Position of item to move;
+     * @param toPosition   Position where item should be placed.
+     */
+    public void move(final int fromPosition, final int toPosition) {
+        if (fromPosition == toPosition) {
+            return;
+        }
+        synchronized (this) {
+            items.add(toPosition, items.remove(fromPosition));
+            if (itemsIndex != null) {
+                itemsIndex.move(fromPosition, toPosition);
+            }
+            notifyAboutChange(Collections.emptyList(), Collections.emptyList(), new Change.Moved(fromPosition, toPosition));
+        }
+    }
+
+    /**
+     * Removing all items that satisfy predicate.
+     * Items are removed in one pass and every continuous block of removed items is provided as single {@link Change.Removed} change.
+     *
+     * @param predicate Function to check item. True - item will be removed, false - item will stay;
+     * @return True if any item was removed.
+     */
+    public boolean removeIf(@NonNull final Func1<TItem, Boolean> predicate) {
+        synchronized (this) {
+            final List<TItem> removedItems = new ArrayList<>();
+            final List<Change> changes = new ArrayList<>();
+            final int size = items.size();
+            int newSize = 0;
+            int removedBlockSize = 0;
+            for (int i = 0; i < size; i++) {
+                final TItem item = items.get(i);
+                if (predicate.call(item)) {
+                    removedItems.add(item);
+                    removedBlockSize++;
+                    continue;
+                }
+                if (removedBlockSize > 0) {
+                    addRemovedBlock(changes, newSize, removedBlockSize);
+                    removedBlockSize = 0;
+                }
+                items.set(newSize, item);
+                newSize++;
+            }
+            if (removedBlockSize > 0) {
+                addRemovedBlock(changes, newSize, removedBlockSize);
+            }
+            if (removedItems.isEmpty()) {
+                return false;
+            }
+            items.subList(newSize, size).clear();
+            notifyAboutChanges(Collections.emptyList(), removedItems, changes);
+            return true;
+        }
+    }
+
+    /**
+     * Removing all items that are not contained in specified collection.
+     *
+     * @param itemsToRetain Items to keep in list;
+     * @return True if any item was removed.
+     */
+    public boolean retainAll(@NonNull final Collection<?> itemsToRetain) {
+        final Set<?> itemsSet = itemsToRetain instanceof Set ? (Set<?>) itemsToRetain : new HashSet<>(itemsToRetain);
+        return removeIf(item -> !itemsSet.contains(item));
+    }
+
+    /**
+     * Replacing each item with result of function.
+     * Every continuous block of items that are not equal to their replacements is provided as single {@link Change.Changed} change.
+     *
+     * @param function Function that returns replacement of item.
+     */
+    public void replaceAll(@NonNull final Func1<TItem, TItem> function) {
+        synchronized (this) {
+            final List<Change> changes = new ArrayList<>();
+            final int size = items.size();
+            int changedBlockStart = -1;
+            for (int i = 0; i <= size; i++) {
+                final boolean changed;
+                if (i < size) {
+                    final TItem item = items.get(i);
+                    final TItem newItem = function.call(item);
+                    items.set(i, newItem);
+                    changed = !item.equals(newItem);
+                } else {
+                    changed = false;
+                }
+                if (changed && changedBlockStart < 0) {
+                    changedBlockStart = i;
+                } else if (!changed && changedBlockStart >= 0) {
+                    if (itemsIndex != null) {
+                        itemsIndex.update(changedBlockStart, items.subList(changedBlockStart, i));
+                    }
+                    changes.add(new Change.Changed(changedBlockStart, i - changedBlockStart, null));
+                    changedBlockStart = -1;
+                }
+            }
+            notifyAboutChanges(Collections.emptyList(), Collections.emptyList(), changes);
+        }
+    }
+
+    private void addRemovedBlock(@NonNull final List<Change> changes, final int position, final int count) {
+        if (itemsIndex != null) {
+            itemsIndex.remove(position, count);
+        }
+        changes.add(new Change.Removed(position, count));
+    }
+
     @NonNull
     @Override
     public TItem get(final int position) {
@@ -216,6 +392,9 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
                 items.set(index, item);
                 index++;
             }
+            if (itemsIndex != null) {
+                itemsIndex.update(position, updatedItems);
+            }
             notifyAboutChange(Collections.emptyList(), Collections.emptyList(), new Change.Changed(position, updatedItems.size(), null));
         }
     }
@@ -229,25 +408,34 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
         synchronized (this) {
             final List<TItem> oldList = new ArrayList<>(items);
             final List<TItem> newList = new ArrayList<>(newItems);
-            final CollectionsChangesCalculator<TItem> calculator;
-            if (diffUtilsSource != null) {
-                if (diffUtilsSource.sameItemsPredicate != null) {
-                    calculator = new DiffCollectionsChangesCalculator<>(oldList, newList,
-                            diffUtilsSource.detectMoves, diffUtilsSource.sameItemsPredicate, diffUtilsSource.changePayloadProducer);
-                } else {
-                    calculator = new DefaultCollectionsChangesCalculator<>(oldList, newList, false);
-                }
-            } else if (sameItemsPredicate != null) {
-                calculator = new DiffCollectionsChangesCalculator<>(oldList, newList, detectMoves, sameItemsPredicate, changePayloadProducer);
-            } else {
-                calculator = new DefaultCollectionsChangesCalculator<>(oldList, newList, false);
-            }
+            final CollectionsChangesCalculator<TItem> calculator = diffUtilsSource != null
+                    ? diffUtilsSource.createChangesCalculator(oldList, newList)
+                    : createChangesCalculator(oldList, newList);
             items.clear();
             items.addAll(newItems);
-            notifyAboutChanges(calculator.calculateInsertedItems(), calculator.calculateRemovedItems(), calculator.calculateChanges());
+            if (itemsIndex != null) {
+                itemsIndex.reset(newList);
+            }
+            notifyAboutChanges(calculator);
         }
     }
 
+    @NonNull
+    private CollectionsChangesCalculator<TItem> createChangesCalculator(@NonNull final List<TItem> oldList,
+                                                                        @NonNull final List<TItem> newList) {
+        if (sameItemsPredicate == null) {
+            return new DefaultCollectionsChangesCalculator<>(oldList, newList, false);
+        }
+        if (diffEngine == DiffEngine.KEYED && diffItemKeyProvider != null) {
+            return new KeyedCollectionsChangesCalculator<>(oldList, newList, detectMoves, diffItemKeyProvider, changePayloadProducer);
+        }
+        final DiffCollectionsChangesCalculator<TItem> calculator = new DiffCollectionsChangesCalculator<>(oldList, newList,
+                detectMoves, sameItemsPredicate, changePayloadProducer, diffItemKeyProvider);
+        calculator.setParallelExecutor(diffExecutor, diffParallelism);
+        calculator.setBudget(diffMaxEditDistance, diffTimeoutMillis);
+        return calculator;
+    }
+
     @Override
     public int size() {
         synchronized (this) {
@@ -265,9 +453,76 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
     public void enableDiffUtils(final boolean detectMoves,
                                 @NonNull final SameItemsPredicate<TItem> sameItemsPredicate,
                                 @Nullable final ChangePayloadProducer<TItem> changePayloadProducer) {
+        enableDiffUtils(detectMoves, sameItemsPredicate, changePayloadProducer, null);
+    }
+
+    /**
+     * Enable diff utils algorithm in collection changes.
+     *
+     * @param detectMoves           The flag that determines whether the {@link Change.Moved} changes will be generated or not;
+     * @param sameItemsPredicate    Predicate for the determination of the same elements;
+     * @param changePayloadProducer Function that calculate change payload when items the same but contents are different;
+     * @param itemKeyProvider       Function that returns key of item to detect moves by hash lookups instead of scanning.
+     *                              Keys of items should be equal if and only if items are same by sameItemsPredicate.
+     */
+    public void enableDiffUtils(final boolean detectMoves,
+                                @NonNull final SameItemsPredicate<TItem> sameItemsPredicate,
+                                @Nullable final ChangePayloadProducer<TItem> changePayloadProducer,
+                                @Nullable final ItemKeyProvider<TItem> itemKeyProvider) {
+        this.diffEngine = DiffEngine.MYERS;
         this.detectMoves = detectMoves;
         this.sameItemsPredicate = sameItemsPredicate;
         this.changePayloadProducer = changePayloadProducer;
+        this.diffItemKeyProvider = itemKeyProvider;
+    }
+
+    /**
+     * Enable diff utils algorithm in collection changes with specific engine.
+     * Items are the same if their keys are equal.
+     *
+     * @param diffEngine            Algorithm to calculate changes with;
+     * @param detectMoves           The flag that determines whether the {@link Change.Moved} changes will be generated or not;
+     * @param itemKeyProvider       Function that returns key of item. Keys should be unique to use {@link DiffEngine#KEYED};
+     * @param changePayloadProducer Function that calculate change payload when items the same but contents are different.
+     */
+    public void enableDiffUtils(@NonNull final DiffEngine diffEngine,
+                                final boolean detectMoves,
+                                @NonNull final ItemKeyProvider<TItem> itemKeyProvider,
+                                @Nullable final ChangePayloadProducer<TItem> changePayloadProducer) {
+        enableDiffUtils(detectMoves, (item1, item2) -> itemKeyProvider.getItemKey(item1).equals(itemKeyProvider.getItemKey(item2)),
+                changePayloadProducer, itemKeyProvider);
+        this.diffEngine = diffEngine;
+    }
+
+    /**
+     * Enable calculation of diff of very large lists on several threads.
+     * Callbacks of diff utils will be called from threads of executor so they should not change anything.
+     *
+     * @param diffExecutor    Executor (usually bounded thread pool) to calculate parts of diff on;
+     * @param diffParallelism Max count of parts calculated by executor at the same time.
+     */
+    public void enableParallelDiffUtils(@NonNull final Executor diffExecutor, final int diffParallelism) {
+        this.diffExecutor = diffExecutor;
+        this.diffParallelism = diffParallelism;
+    }
+
+    /**
+     * Disable calculation of diff on several threads.
+     */
+    public void disableParallelDiffUtils() {
+        this.diffExecutor = null;
+    }
+
+    /**
+     * Limits time of diff calculation in {@link #set(Collection)} so it is not stalling on very different lists.
+     * Parts of lists that are not resolved within the budget are reported as removed and inserted items.
+     *
+     * @param maxEditDistance Max edit distance to calculate exactly or {@link Integer#MAX_VALUE} to not limit it;
+     * @param timeoutMillis   Max time of diff calculation in milliseconds or 0 to not limit it.
+     */
+    public void setDiffUtilsBudget(final int maxEditDistance, final long timeoutMillis) {
+        this.diffMaxEditDistance = maxEditDistance;
+        this.diffTimeoutMillis = timeoutMillis;
     }
 
     /**
@@ -295,25 +550,212 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
         this.diffUtilsSource = diffUtilsSource;
     }
 
+    /**
+     * Enable index of items positions by their keys.
+     * Then {@link #indexOf(Object)} and {@link #remove(Object)} are looking for item with same key in O(log n) time instead of linear search.
+     * Use {@link ItemKeyProvider} that is returning item itself to keep {@link Object#equals(Object)} semantic of search.
+     *
+     * @param itemKeyProvider Function that returns key of item.
+     */
+    public void enableItemsIndex(@NonNull final ItemKeyProvider<TItem> itemKeyProvider) {
+        synchronized (this) {
+            itemsIndex = new ItemsPositionIndex<>(itemKeyProvider, items);
+        }
+    }
+
+    /**
+     * Disable index of items positions.
+     */
+    public void disableItemsIndex() {
+        synchronized (this) {
+            itemsIndex = null;
+        }
+    }
+
+    /**
+     * Returns enabled flag of items index.
+     *
+     * @return true if items index is enabled.
+     */
+    public boolean itemsIndexIsEnabled() {
+        synchronized (this) {
+            return itemsIndex != null;
+        }
+    }
+
     /**
      * Returns position of item in list.
+     * If items index is enabled then position of item with same key will be returned.
      *
      * @param item Item to find index of;
      * @return Position of item in list or -1 if item not found.
      */
     public int indexOf(@NonNull final TItem item) {
         synchronized (this) {
-            return items.indexOf(item);
+            return itemsIndex != null ? itemsIndex.indexOfKey(itemsIndex.getKeyProvider().getItemKey(item)) : items.indexOf(item);
+        }
+    }
+
+    /**
+     * Returns position of item with specific key in list. Items index should be enabled by {@link #enableItemsIndex(ItemKeyProvider)}.
+     *
+     * @param key Key of item to find index of;
+     * @return Position of item in list or -1 if item not found.
+     */
+    public int indexOfKey(@NonNull final Object key) {
+        synchronized (this) {
+            if (itemsIndex == null) {
+                Lc.assertion("Items index is not enabled");
+                return -1;
+            }
+            return itemsIndex.indexOfKey(key);
+        }
+    }
+
+    /**
+     * Returns last position of item with specific key in list searching backward from specific position.
+     * Items index should be enabled by {@link #enableItemsIndex(ItemKeyProvider)}.
+     *
+     * @param key          Key of item to find index of;
+     * @param fromPosition Position to start search from;
+     * @return Position of item in list or -1 if item not found.
+     */
+    public int lastIndexOfKey(@NonNull final Object key, final int fromPosition) {
+        synchronized (this) {
+            if (itemsIndex == null) {
+                Lc.assertion("Items index is not enabled");
+                return -1;
+            }
+            return itemsIndex.lastIndexOfKey(key, fromPosition);
+        }
+    }
+
+    /**
+     * Sets codec to serialize items in compact binary form instead of Java serialization of items.
+     *
+     * @param itemsCodec Codec of items or null to use Java serialization.
+     */
+    public void setItemsCodec(@Nullable final BinaryCodec<TItem> itemsCodec) {
+        synchronized (this) {
+            this.itemsCodec = itemsCodec;
+            this.keysCodec = null;
+            this.keysCodecKeyProvider = null;
+        }
+    }
+
+    /**
+     * Sets codec to serialize only keys of items so serialized state size does not depend on size of items.
+     * After deserialization list is empty and keys are available via {@link #getPendingKeys()}
+     * until items are restored by {@link #rehydrate(Func1)}.
+     * Key provider is serialized together with codec only if it is {@link Serializable} (e.g. enum or serializable lambda).
+     * Otherwise this method should be called again after deserialization or list will be saved by Java serialization of items.
+     *
+     * @param keyProvider Function that returns key of item;
+     * @param keysCodec   Codec of keys.
+     */
+    public void setKeysCodec(@NonNull final ItemKeyProvider<TItem> keyProvider, @NonNull final BinaryCodec<Object> keysCodec) {
+        synchronized (this) {
+            this.itemsCodec = null;
+            this.keysCodec = keysCodec;
+            this.keysCodecKeyProvider = keyProvider;
+        }
+    }
+
+    /**
+     * Returns keys of items which were serialized by codec from {@link #setKeysCodec(ItemKeyProvider, BinaryCodec)}
+     * and are not restored by {@link #rehydrate(Func1)} yet.
+     *
+     * @return Keys of items to restore.
+     */
+    @NonNull
+    public List<Object> getPendingKeys() {
+        synchronized (this) {
+            return pendingKeys != null ? Collections.unmodifiableList(new ArrayList<>(pendingKeys)) : Collections.emptyList();
+        }
+    }
+
+    /**
+     * Restores items by keys from {@link #getPendingKeys()} and inserts them at the beginning of list.
+     *
+     * @param itemByKey Function that returns item by key or null if item could not be restored.
+     */
+    public void rehydrate(@NonNull final Func1<Object, TItem> itemByKey) {
+        synchronized (this) {
+            if (pendingKeys == null) {
+                return;
+            }
+            final List<TItem> restoredItems = new ArrayList<>(pendingKeys.size());
+            for (final Object key : pendingKeys) {
+                final TItem item = itemByKey.call(key);
+                if (item != null) {
+                    restoredItems.add(item);
+                }
+            }
+            pendingKeys = null;
+            addAll(0, restoredItems);
         }
     }
 
     private void writeObject(@NonNull final ObjectOutputStream outputStream) throws IOException {
-        outputStream.writeObject(items);
+        synchronized (this) {
+            outputStream.writeByte(SERIALIZATION_FORMAT_VERSION);
+            if (keysCodec != null && (keysCodecKeyProvider != null || (pendingKeys != null && items.isEmpty()))) {
+                // not yet rehydrated keys go first as rehydrate() inserts their items at the beginning of list
+                final List<Object> keys = new ArrayList<>((pendingKeys != null ? pendingKeys.size() : 0) + items.size());
+                if (pendingKeys != null) {
+                    keys.addAll(pendingKeys);
+                }
+                for (final TItem item : items) {
+                    keys.add(keysCodecKeyProvider.getItemKey(item));
+                }
+                outputStream.writeByte(SERIALIZATION_MODE_KEYS_CODEC);
+                outputStream.writeObject(keysCodec);
+                outputStream.writeObject(keysCodecKeyProvider instanceof Serializable ? keysCodecKeyProvider : null);
+                SerializationUtils.writeRecords(outputStream, keysCodec, keys);
+            } else if (itemsCodec != null) {
+                outputStream.writeByte(SERIALIZATION_MODE_ITEMS_CODEC);
+                outputStream.writeObject(itemsCodec);
+                SerializationUtils.writeRecords(outputStream, itemsCodec, items);
+            } else {
+                if (keysCodec != null) {
+                    Lc.w("Key provider of keys codec is lost on deserialization so items are serialized by Java serialization"
+                            + (pendingKeys != null ? " and not rehydrated keys are lost" : ""));
+                }
+                outputStream.writeByte(SERIALIZATION_MODE_JAVA);
+                outputStream.writeObject(items);
+            }
+        }
     }
 
     @SuppressWarnings("unchecked")
     private void readObject(@NonNull final ObjectInputStream inputStream) throws IOException, ClassNotFoundException {
-        items = (List<TItem>) inputStream.readObject();
+        final int formatVersion = inputStream.readByte();
+        if (formatVersion != SERIALIZATION_FORMAT_VERSION && formatVersion != SERIALIZATION_FORMAT_VERSION_WITHOUT_KEY_PROVIDER) {
+            throw new InvalidObjectException("Unsupported format version " + formatVersion);
+        }
+        // initializers of fields are not called on deserialization and diff settings are not serialized
+        diffEngine = DiffEngine.MYERS;
+        diffMaxEditDistance = Integer.MAX_VALUE;
+        final int mode = inputStream.readByte();
+        switch (mode) {
+            case SERIALIZATION_MODE_JAVA:
+                items = (List<TItem>) inputStream.readObject();
+                break;
+            case SERIALIZATION_MODE_ITEMS_CODEC:
+                itemsCodec = (BinaryCodec<TItem>) inputStream.readObject();
+                items = SerializationUtils.readRecords(inputStream, itemsCodec);
+                break;
+            case SERIALIZATION_MODE_KEYS_CODEC:
+                keysCodec = (BinaryCodec<Object>) inputStream.readObject();
+                if (formatVersion != SERIALIZATION_FORMAT_VERSION_WITHOUT_KEY_PROVIDER) {
+                    keysCodecKeyProvider = (ItemKeyProvider<TItem>) inputStream.readObject();
+                }
+                pendingKeys = SerializationUtils.readRecords(inputStream, keysCodec);
+                items = new ArrayList<>();
+                break;
+            default:
+                throw new InvalidObjectException("Unknown serialization mode " + mode);
+        }
     }
 
 }
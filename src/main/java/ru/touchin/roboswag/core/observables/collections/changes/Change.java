@@ -19,14 +19,29 @@
 
 package ru.touchin.roboswag.core.observables.collections.changes;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import ru.touchin.roboswag.core.android.support.v7.util.ListUpdateCallback;
+import ru.touchin.roboswag.core.log.Lc;
+
 /**
  * Created by Gavriil Sitnikov on 23/05/16.
  * Class representing simple change of collection like insertion, remove or replacing/changing items.
  */
 public abstract class Change {
 
+    /**
+     * Dispatches change to callback. {@link ListUpdateCallback} knows nothing about changes other than
+     * {@link Inserted}, {@link Removed}, {@link Moved} and {@link Changed} so other subclasses should override it
+     * or they are not dispatched.
+     *
+     * @param updateCallback Callback to dispatch change to.
+     */
+    public void dispatchTo(@NonNull final ListUpdateCallback updateCallback) {
+        Lc.w("Change %s could not be dispatched to callback %s", this, updateCallback);
+    }
+
     /**
      * Represents a insert operation in collection.
      */
@@ -41,6 +56,11 @@ public abstract class Change {
             this.count = count;
         }
 
+        @Override
+        public void dispatchTo(@NonNull final ListUpdateCallback updateCallback) {
+            updateCallback.onInserted(position, count);
+        }
+
         public int getPosition() {
             return position;
         }
@@ -65,6 +85,11 @@ public abstract class Change {
             this.count = count;
         }
 
+        @Override
+        public void dispatchTo(@NonNull final ListUpdateCallback updateCallback) {
+            updateCallback.onRemoved(position, count);
+        }
+
         public int getPosition() {
             return position;
         }
@@ -89,6 +114,11 @@ public abstract class Change {
             this.toPosition = toPosition;
         }
 
+        @Override
+        public void dispatchTo(@NonNull final ListUpdateCallback updateCallback) {
+            updateCallback.onMoved(fromPosition, toPosition);
+        }
+
         public int getFromPosition() {
             return fromPosition;
         }
@@ -116,6 +146,11 @@ public abstract class Change {
             this.payload = payload;
         }
 
+        @Override
+        public void dispatchTo(@NonNull final ListUpdateCallback updateCallback) {
+            updateCallback.onChanged(position, count, payload);
+        }
+
         public int getPosition() {
             return position;
         }
@@ -0,0 +1,60 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+import ru.touchin.roboswag.core.android.support.v7.util.ListUpdateCallback;
+
+/**
+ * Callback that collects dispatched updates as list of {@link Change}.
+ */
+class ChangesListUpdateCallback implements ListUpdateCallback {
+
+    @NonNull
+    private final List<Change> changes;
+
+    public ChangesListUpdateCallback(@NonNull final List<Change> changes) {
+        this.changes = changes;
+    }
+
+    @Override
+    public void onInserted(final int position, final int count) {
+        changes.add(new Change.Inserted(position, count));
+    }
+
+    @Override
+    public void onRemoved(final int position, final int count) {
+        changes.add(new Change.Removed(position, count));
+    }
+
+    @Override
+    public void onMoved(final int fromPosition, final int toPosition) {
+        changes.add(new Change.Moved(fromPosition, toPosition));
+    }
+
+    @Override
+    public void onChanged(final int position, final int count, @Nullable final Object payload) {
+        changes.add(new Change.Changed(position, count, payload));
+    }
+
+}
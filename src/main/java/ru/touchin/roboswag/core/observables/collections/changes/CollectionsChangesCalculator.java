@@ -23,6 +23,8 @@ import android.support.annotation.NonNull;
 
 import java.util.List;
 
+import ru.touchin.roboswag.core.android.support.v7.util.ListUpdateCallback;
+
 /**
  * Interface that represent changes calculator between two collections.
  */
@@ -36,6 +38,20 @@ public interface CollectionsChangesCalculator<TItem> {
     @NonNull
     List<Change> calculateChanges();
 
+    /**
+     * Calculate changes between two collection and dispatch them to callback without collecting them to list.
+     * Dispatched changes are the same as changes returned by {@link #calculateChanges()}.
+     * By default changes are calculated by {@link #calculateChanges()} and dispatched one by one
+     * so implementations should override it to not collect changes to list.
+     *
+     * @param updateCallback Callback to dispatch changes to.
+     */
+    default void dispatchChanges(@NonNull final ListUpdateCallback updateCallback) {
+        for (final Change change : calculateChanges()) {
+            change.dispatchTo(updateCallback);
+        }
+    }
+
     /**
      * Calculate changes between two collection as collection of inserted items.
      *
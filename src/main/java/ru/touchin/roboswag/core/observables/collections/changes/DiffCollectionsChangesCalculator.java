@@ -24,15 +24,34 @@ import android.support.annotation.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
+import ru.touchin.roboswag.core.android.support.v7.util.BatchingListUpdateCallback;
 import ru.touchin.roboswag.core.android.support.v7.util.DiffUtil;
 import ru.touchin.roboswag.core.android.support.v7.util.ListUpdateCallback;
+import ru.touchin.roboswag.core.metrics.Metrics;
+import ru.touchin.roboswag.core.utils.ThreadLocalValue;
 
 /**
  * Implementation of {@link CollectionsChangesCalculator} based on DiffUtils from support library.
+ * Common prefix and suffix of lists are matched in linear time before diff calculation
+ * so pure appends, truncations and insertions/removals of single block are calculated without DiffUtils at all
+ * and in other cases DiffUtils processes only middle part of lists which is different.
  */
 public class DiffCollectionsChangesCalculator<TItem> extends DiffUtil.Callback implements CollectionsChangesCalculator<TItem> {
 
+    /**
+     * Name of {@link Metrics} histogram of durations of diff calculation of changed middle parts of lists.
+     */
+    public static final String DIFF_METRIC_NAME = "changes.diff";
+
+    // diff result is dispatched right after calculation so buffers could be re-used by every calculation on same thread;
+    // calculations started from update callbacks during dispatching are using own buffers to not overwrite dispatching result
+    private static final ThreadLocalValue<PooledWorkspace> DIFF_WORKSPACE = new ThreadLocalValue<>(PooledWorkspace::new);
+    // buffers of pooled workspace larger than that are released after calculation to not keep memory of largest diff ever calculated
+    private static final int MAX_POOLED_WORKSPACE_CAPACITY = 64 * 1024;
+
     @NonNull
     private final List<TItem> oldList;
     @NonNull
@@ -42,46 +61,154 @@ public class DiffCollectionsChangesCalculator<TItem> extends DiffUtil.Callback i
     private final SameItemsPredicate<TItem> sameItemsPredicate;
     @Nullable
     private final ChangePayloadProducer<TItem> changePayloadProducer;
+    @Nullable
+    private final ItemKeyProvider<TItem> itemKeyProvider;
+    @Nullable
+    private Executor parallelExecutor;
+    private int parallelism;
+    private int maxEditDistance = Integer.MAX_VALUE;
+    private long timeoutMillis;
 
     public DiffCollectionsChangesCalculator(@NonNull final List<TItem> oldList,
                                             @NonNull final List<TItem> newList,
                                             final boolean detectMoves,
                                             @NonNull final SameItemsPredicate<TItem> sameItemsPredicate,
                                             @Nullable final ChangePayloadProducer<TItem> changePayloadProducer) {
+        this(oldList, newList, detectMoves, sameItemsPredicate, changePayloadProducer, null);
+    }
+
+    /**
+     * Calculator of changes between two lists.
+     *
+     * @param oldList               Initial list;
+     * @param newList               Changed list;
+     * @param detectMoves           The flag that determines whether the {@link Change.Moved} changes will be generated or not;
+     * @param sameItemsPredicate    Predicate for the determination of the same elements;
+     * @param changePayloadProducer Function that calculate change payload when items the same but contents are different;
+     * @param itemKeyProvider       Function that returns key of item to detect moves by hash lookups.
+     *                              Keys of items should be equal if and only if items are same by sameItemsPredicate.
+     */
+    public DiffCollectionsChangesCalculator(@NonNull final List<TItem> oldList,
+                                            @NonNull final List<TItem> newList,
+                                            final boolean detectMoves,
+                                            @NonNull final SameItemsPredicate<TItem> sameItemsPredicate,
+                                            @Nullable final ChangePayloadProducer<TItem> changePayloadProducer,
+                                            @Nullable final ItemKeyProvider<TItem> itemKeyProvider) {
         super();
         this.oldList = oldList;
         this.newList = newList;
         this.detectMoves = detectMoves;
         this.sameItemsPredicate = sameItemsPredicate;
         this.changePayloadProducer = changePayloadProducer;
+        this.itemKeyProvider = itemKeyProvider;
+    }
+
+    /**
+     * Sets executor to calculate diff of very large lists on several threads.
+     * Result is the same as the result of calculation on one thread.
+     *
+     * @param parallelExecutor Executor to calculate parts of diff on or null to calculate on current thread only;
+     * @param parallelism      Max count of parts calculated by executor at the same time.
+     */
+    public void setParallelExecutor(@Nullable final Executor parallelExecutor, final int parallelism) {
+        this.parallelExecutor = parallelExecutor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Limits time of calculation. If lists are too different to calculate diff within the budget
+     * then unresolved parts of lists are reported as removal of old items and insertion of new ones.
+     * Lists with edit distance less or equal to maxEditDistance are calculated exactly if timeout is not reached.
+     * Consider to provide item keys or disable moves detection as moves detection of such parts is not limited by budget.
+     *
+     * @param maxEditDistance Max edit distance to calculate exactly or {@link Integer#MAX_VALUE} to not limit it;
+     * @param timeoutMillis   Max time of diff calculation in milliseconds or 0 to not limit it.
+     */
+    public void setBudget(final int maxEditDistance, final long timeoutMillis) {
+        this.maxEditDistance = maxEditDistance;
+        this.timeoutMillis = timeoutMillis;
     }
 
     @NonNull
     @Override
     public List<Change> calculateChanges() {
         final List<Change> changes = new ArrayList<>();
-        DiffUtil.calculateDiff(this, detectMoves).dispatchUpdatesTo(new ListUpdateCallback() {
-            @Override
-            public void onInserted(final int position, final int count) {
-                changes.add(new Change.Inserted(position, count));
-            }
+        dispatchChanges(new ChangesListUpdateCallback(changes));
+        return changes;
+    }
 
-            @Override
-            public void onRemoved(final int position, final int count) {
-                changes.add(new Change.Removed(position, count));
-            }
+    @Override
+    public void dispatchChanges(@NonNull final ListUpdateCallback targetCallback) {
+        final BatchingListUpdateCallback updateCallback = new BatchingListUpdateCallback(targetCallback);
+        final long startNanoTime = System.nanoTime();
+        final int oldSize = oldList.size();
+        final int newSize = newList.size();
+        int prefixSize = 0;
+        while (prefixSize < oldSize && prefixSize < newSize && areItemsTheSame(prefixSize, prefixSize)) {
+            prefixSize++;
+        }
+        int suffixSize = 0;
+        while (suffixSize < oldSize - prefixSize && suffixSize < newSize - prefixSize
+                && areItemsTheSame(oldSize - suffixSize - 1, newSize - suffixSize - 1)) {
+            suffixSize++;
+        }
+        final int oldMiddleSize = oldSize - prefixSize - suffixSize;
+        final int newMiddleSize = newSize - prefixSize - suffixSize;
 
-            @Override
-            public void onMoved(final int fromPosition, final int toPosition) {
-                changes.add(new Change.Moved(fromPosition, toPosition));
+        // dispatching from the end to the beginning like DiffUtils does so positions of not yet dispatched items are not shifted
+        dispatchContentChanges(updateCallback, oldSize - suffixSize, newSize - suffixSize, suffixSize);
+        if (oldMiddleSize > 0 && newMiddleSize > 0) {
+            final MiddlePartCallback middlePartCallback = new MiddlePartCallback(prefixSize, oldMiddleSize, newMiddleSize);
+            final PooledWorkspace pooledWorkspace = DIFF_WORKSPACE.get();
+            final boolean usePooledWorkspace = !pooledWorkspace.inUse;
+            final DiffUtil.Workspace workspace = usePooledWorkspace ? pooledWorkspace.workspace : new DiffUtil.Workspace();
+            pooledWorkspace.inUse = true;
+            try {
+                if (timeoutMillis > 0) {
+                    workspace.setBudget(maxEditDistance, startNanoTime + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+                } else {
+                    workspace.setBudget(maxEditDistance);
+                }
+                final long diffStartNanoTime = Metrics.startTiming();
+                final DiffUtil.DiffResult diffResult = parallelExecutor != null
+                        ? DiffUtil.calculateDiff(middlePartCallback, detectMoves, workspace, parallelExecutor, parallelism)
+                        : DiffUtil.calculateDiff(middlePartCallback, detectMoves, workspace);
+                Metrics.recordTiming(DIFF_METRIC_NAME, diffStartNanoTime);
+                diffResult.dispatchUpdatesTo(new OffsetListUpdateCallback(updateCallback, prefixSize));
+            } finally {
+                if (usePooledWorkspace) {
+                    workspace.trim(MAX_POOLED_WORKSPACE_CAPACITY);
+                    pooledWorkspace.inUse = false;
+                }
             }
+        } else if (oldMiddleSize > 0) {
+            updateCallback.onRemoved(prefixSize, oldMiddleSize);
+        } else if (newMiddleSize > 0) {
+            updateCallback.onInserted(prefixSize, newMiddleSize);
+        }
+        dispatchContentChanges(updateCallback, 0, 0, prefixSize);
+        updateCallback.dispatchLastEvent();
+    }
+
+    @Nullable
+    @Override
+    public Object getOldItemKey(final int oldItemPosition) {
+        return itemKeyProvider != null ? itemKeyProvider.getItemKey(oldList.get(oldItemPosition)) : null;
+    }
 
-            @Override
-            public void onChanged(final int position, final int count, @Nullable final Object payload) {
-                changes.add(new Change.Changed(position, count, payload));
+    @Nullable
+    @Override
+    public Object getNewItemKey(final int newItemPosition) {
+        return itemKeyProvider != null ? itemKeyProvider.getItemKey(newList.get(newItemPosition)) : null;
+    }
+
+    private void dispatchContentChanges(@NonNull final ListUpdateCallback updateCallback,
+                                        final int oldStart, final int newStart, final int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            if (!areContentsTheSame(oldStart + i, newStart + i)) {
+                updateCallback.onChanged(oldStart + i, 1, getChangePayload(oldStart + i, newStart + i));
             }
-        });
-        return changes;
+        }
     }
 
     @NonNull
@@ -135,6 +262,98 @@ public class DiffCollectionsChangesCalculator<TItem> extends DiffUtil.Callback i
                 ? changePayloadProducer.getChangePayload(oldList.get(oldItemPosition), newList.get(newItemPosition)) : null;
     }
 
+    /**
+     * Callback to calculate diff of middle parts of lists which are not matched by common prefix and suffix.
+     */
+    private class MiddlePartCallback extends DiffUtil.Callback {
+
+        private final int offset;
+        private final int oldListSize;
+        private final int newListSize;
+
+        public MiddlePartCallback(final int offset, final int oldListSize, final int newListSize) {
+            super();
+            this.offset = offset;
+            this.oldListSize = oldListSize;
+            this.newListSize = newListSize;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldListSize;
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newListSize;
+        }
+
+        @Override
+        public boolean areItemsTheSame(final int oldItemPosition, final int newItemPosition) {
+            return DiffCollectionsChangesCalculator.this.areItemsTheSame(offset + oldItemPosition, offset + newItemPosition);
+        }
+
+        @Override
+        public boolean areContentsTheSame(final int oldItemPosition, final int newItemPosition) {
+            return DiffCollectionsChangesCalculator.this.areContentsTheSame(offset + oldItemPosition, offset + newItemPosition);
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(final int oldItemPosition, final int newItemPosition) {
+            return DiffCollectionsChangesCalculator.this.getChangePayload(offset + oldItemPosition, offset + newItemPosition);
+        }
+
+        @Nullable
+        @Override
+        public Object getOldItemKey(final int oldItemPosition) {
+            return DiffCollectionsChangesCalculator.this.getOldItemKey(offset + oldItemPosition);
+        }
+
+        @Nullable
+        @Override
+        public Object getNewItemKey(final int newItemPosition) {
+            return DiffCollectionsChangesCalculator.this.getNewItemKey(offset + newItemPosition);
+        }
+
+    }
+
+    /**
+     * Callback that shifts positions of updates calculated for middle parts of lists.
+     */
+    private static class OffsetListUpdateCallback implements ListUpdateCallback {
+
+        @NonNull
+        private final ListUpdateCallback wrappedCallback;
+        private final int offset;
+
+        public OffsetListUpdateCallback(@NonNull final ListUpdateCallback wrappedCallback, final int offset) {
+            this.wrappedCallback = wrappedCallback;
+            this.offset = offset;
+        }
+
+        @Override
+        public void onInserted(final int position, final int count) {
+            wrappedCallback.onInserted(offset + position, count);
+        }
+
+        @Override
+        public void onRemoved(final int position, final int count) {
+            wrappedCallback.onRemoved(offset + position, count);
+        }
+
+        @Override
+        public void onMoved(final int fromPosition, final int toPosition) {
+            wrappedCallback.onMoved(offset + fromPosition, offset + toPosition);
+        }
+
+        @Override
+        public void onChanged(final int position, final int count, @Nullable final Object payload) {
+            wrappedCallback.onChanged(offset + position, count, payload);
+        }
+
+    }
+
     private boolean containsByPredicate(@NonNull final TItem searchedItem, @NonNull final List<TItem> items) {
         for (final TItem item : items) {
             if (sameItemsPredicate.areSame(item, searchedItem)) {
@@ -144,4 +363,13 @@ public class DiffCollectionsChangesCalculator<TItem> extends DiffUtil.Callback i
         return false;
     }
 
+    private static class PooledWorkspace {
+
+        @NonNull
+        private final DiffUtil.Workspace workspace = new DiffUtil.Workspace();
+        // true while result calculated in workspace is dispatching
+        private boolean inUse;
+
+    }
+
 }
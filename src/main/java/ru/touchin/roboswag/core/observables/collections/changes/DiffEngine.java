@@ -0,0 +1,36 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+/**
+ * Algorithm which is used to calculate changes between old and new items of list.
+ */
+public enum DiffEngine {
+
+    /**
+     * Myers algorithm of {@link DiffCollectionsChangesCalculator}. Works with any items and is fast when lists differ a little.
+     */
+    MYERS,
+    /**
+     * Matching by keys of {@link KeyedCollectionsChangesCalculator}. Requires unique keys of items
+     * and is fast even when lists are shuffled or re-sorted.
+     */
+    KEYED
+
+}
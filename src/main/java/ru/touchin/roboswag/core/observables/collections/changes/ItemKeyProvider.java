@@ -0,0 +1,41 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Functional interface for getting key of item. Usually this is just the id of item.
+ * Keys are compared by {@link Object#equals(Object)} and {@link Object#hashCode()} so they could be used in hash-based indexes.
+ *
+ * @param <TItem> Type of objects
+ */
+public interface ItemKeyProvider<TItem> {
+
+    /**
+     * Function for getting key of item.
+     *
+     * @param item Item to get key of;
+     * @return Key of item.
+     */
+    @NonNull
+    Object getItemKey(@NonNull TItem item);
+
+}
@@ -0,0 +1,369 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ru.touchin.roboswag.core.android.support.v7.util.BatchingListUpdateCallback;
+import ru.touchin.roboswag.core.android.support.v7.util.ListUpdateCallback;
+import ru.touchin.roboswag.core.metrics.Metrics;
+
+/**
+ * Implementation of {@link CollectionsChangesCalculator} for lists with unique item keys.
+ * Items are matched by keys and the longest increasing subsequence of matched items stays in place,
+ * so changes are calculated in O((N + M) log(N + M)) time regardless of how much lists are reordered
+ * while Myers algorithm of {@link DiffCollectionsChangesCalculator} degrades to quadratic time on shuffled lists.
+ * Other matched items are moved or (if moves are not detected) removed and inserted again.
+ * If keys are not unique in any of lists then calculation is delegated to {@link DiffCollectionsChangesCalculator}.
+ */
+public class KeyedCollectionsChangesCalculator<TItem> implements CollectionsChangesCalculator<TItem> {
+
+    /**
+     * Name of {@link Metrics} histogram of durations of matching old and new items by keys.
+     */
+    public static final String MATCHING_METRIC_NAME = "changes.keyedMatching";
+
+    private static final int NO_POSITION = -1;
+
+    @NonNull
+    private final List<TItem> oldList;
+    @NonNull
+    private final List<TItem> newList;
+    private final boolean detectMoves;
+    @NonNull
+    private final ItemKeyProvider<TItem> itemKeyProvider;
+    @Nullable
+    private final ChangePayloadProducer<TItem> changePayloadProducer;
+    @Nullable
+    private int[] newPositionsOfOldItems;
+    @Nullable
+    private int[] oldPositionsOfNewItems;
+    @Nullable
+    private DiffCollectionsChangesCalculator<TItem> fallbackCalculator;
+
+    /**
+     * Calculator of changes between two lists with unique item keys.
+     *
+     * @param oldList               Initial list;
+     * @param newList               Changed list;
+     * @param detectMoves           The flag that determines whether the {@link Change.Moved} changes will be generated or not;
+     * @param itemKeyProvider       Function that returns key of item. Items with equal keys are the same items;
+     * @param changePayloadProducer Function that calculate change payload when items the same but contents are different.
+     */
+    public KeyedCollectionsChangesCalculator(@NonNull final List<TItem> oldList,
+                                             @NonNull final List<TItem> newList,
+                                             final boolean detectMoves,
+                                             @NonNull final ItemKeyProvider<TItem> itemKeyProvider,
+                                             @Nullable final ChangePayloadProducer<TItem> changePayloadProducer) {
+        super();
+        this.oldList = oldList;
+        this.newList = newList;
+        this.detectMoves = detectMoves;
+        this.itemKeyProvider = itemKeyProvider;
+        this.changePayloadProducer = changePayloadProducer;
+    }
+
+    @NonNull
+    @Override
+    public List<Change> calculateChanges() {
+        final List<Change> changes = new ArrayList<>();
+        dispatchChanges(new ChangesListUpdateCallback(changes));
+        return changes;
+    }
+
+    @Override
+    public void dispatchChanges(@NonNull final ListUpdateCallback targetCallback) {
+        matchItems();
+        if (fallbackCalculator != null) {
+            fallbackCalculator.dispatchChanges(targetCallback);
+            return;
+        }
+        final int[] newPositions = newPositionsOfOldItems;
+        final int[] oldPositions = oldPositionsOfNewItems;
+        final boolean[] staysInPlace = calculateItemsInPlace(newPositions);
+
+        final BatchingListUpdateCallback updateCallback = new BatchingListUpdateCallback(targetCallback);
+        // removing from the end so positions of not yet removed items are old positions
+        for (int oldPosition = newPositions.length - 1; oldPosition >= 0; oldPosition--) {
+            if (newPositions[oldPosition] == NO_POSITION || (!detectMoves && !staysInPlace[oldPosition])) {
+                updateCallback.onRemoved(oldPosition, 1);
+            }
+        }
+        if (detectMoves) {
+            dispatchMoves(updateCallback, newPositions, oldPositions, staysInPlace);
+        }
+        // inserting from the beginning so positions of inserted items are new positions
+        for (int newPosition = 0; newPosition < oldPositions.length; newPosition++) {
+            final int oldPosition = oldPositions[newPosition];
+            if (oldPosition == NO_POSITION || (!detectMoves && !staysInPlace[oldPosition])) {
+                updateCallback.onInserted(newPosition, 1);
+            }
+        }
+        // at this moment list is equal to new list by keys
+        for (int newPosition = 0; newPosition < oldPositions.length; newPosition++) {
+            final int oldPosition = oldPositions[newPosition];
+            if (oldPosition != NO_POSITION && (detectMoves || staysInPlace[oldPosition])) {
+                final TItem oldItem = oldList.get(oldPosition);
+                final TItem newItem = newList.get(newPosition);
+                if (!oldItem.equals(newItem)) {
+                    updateCallback.onChanged(newPosition, 1,
+                            changePayloadProducer != null ? changePayloadProducer.getChangePayload(oldItem, newItem) : null);
+                }
+            }
+        }
+        updateCallback.dispatchLastEvent();
+    }
+
+    @NonNull
+    @Override
+    public List<TItem> calculateInsertedItems() {
+        matchItems();
+        if (fallbackCalculator != null) {
+            return fallbackCalculator.calculateInsertedItems();
+        }
+        final List<TItem> insertedItems = new ArrayList<>();
+        for (int newPosition = 0; newPosition < oldPositionsOfNewItems.length; newPosition++) {
+            if (oldPositionsOfNewItems[newPosition] == NO_POSITION) {
+                insertedItems.add(newList.get(newPosition));
+            }
+        }
+        return insertedItems;
+    }
+
+    @NonNull
+    @Override
+    public List<TItem> calculateRemovedItems() {
+        matchItems();
+        if (fallbackCalculator != null) {
+            return fallbackCalculator.calculateRemovedItems();
+        }
+        final List<TItem> removedItems = new ArrayList<>();
+        for (int oldPosition = 0; oldPosition < newPositionsOfOldItems.length; oldPosition++) {
+            if (newPositionsOfOldItems[oldPosition] == NO_POSITION) {
+                removedItems.add(oldList.get(oldPosition));
+            }
+        }
+        return removedItems;
+    }
+
+    private void matchItems() {
+        if (newPositionsOfOldItems != null || fallbackCalculator != null) {
+            return;
+        }
+        final long startNanoTime = Metrics.startTiming();
+        final Map<Object, Integer> newPositionsByKey = new HashMap<>(newList.size() * 2);
+        final int[] oldPositions = new int[newList.size()];
+        for (int newPosition = 0; newPosition < oldPositions.length; newPosition++) {
+            if (newPositionsByKey.put(itemKeyProvider.getItemKey(newList.get(newPosition)), newPosition) != null) {
+                createFallbackCalculator();
+                return;
+            }
+            oldPositions[newPosition] = NO_POSITION;
+        }
+        final int[] newPositions = new int[oldList.size()];
+        for (int oldPosition = 0; oldPosition < newPositions.length; oldPosition++) {
+            final Integer newPosition = newPositionsByKey.get(itemKeyProvider.getItemKey(oldList.get(oldPosition)));
+            if (newPosition == null) {
+                newPositions[oldPosition] = NO_POSITION;
+                continue;
+            }
+            if (oldPositions[newPosition] != NO_POSITION) {
+                createFallbackCalculator();
+                return;
+            }
+            newPositions[oldPosition] = newPosition;
+            oldPositions[newPosition] = oldPosition;
+        }
+        newPositionsOfOldItems = newPositions;
+        oldPositionsOfNewItems = oldPositions;
+        Metrics.recordTiming(MATCHING_METRIC_NAME, startNanoTime);
+    }
+
+    private void createFallbackCalculator() {
+        fallbackCalculator = new DiffCollectionsChangesCalculator<>(oldList, newList, detectMoves,
+                (item1, item2) -> itemKeyProvider.getItemKey(item1).equals(itemKeyProvider.getItemKey(item2)),
+                changePayloadProducer, itemKeyProvider);
+    }
+
+    /**
+     * Returns flags of old items that are in longest increasing subsequence of new positions of matched items.
+     * Relative order of these items is not changed so they are not moved.
+     *
+     * @param newPositions New positions of old items;
+     * @return Flags by old positions.
+     */
+    @NonNull
+    private static boolean[] calculateItemsInPlace(@NonNull final int[] newPositions) {
+        // tails[length - 1] is old position of smallest tail of increasing subsequence of such length
+        final int[] tails = new int[newPositions.length];
+        final int[] previous = new int[newPositions.length];
+        int length = 0;
+        for (int oldPosition = 0; oldPosition < newPositions.length; oldPosition++) {
+            final int newPosition = newPositions[oldPosition];
+            if (newPosition == NO_POSITION) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (newPositions[tails[middle]] < newPosition) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            previous[oldPosition] = low > 0 ? tails[low - 1] : NO_POSITION;
+            tails[low] = oldPosition;
+            if (low == length) {
+                length++;
+            }
+        }
+        final boolean[] result = new boolean[newPositions.length];
+        int oldPosition = length > 0 ? tails[length - 1] : NO_POSITION;
+        while (oldPosition != NO_POSITION) {
+            result[oldPosition] = true;
+            oldPosition = previous[oldPosition];
+        }
+        return result;
+    }
+
+    /**
+     * Dispatches moves of matched items which are not in place when removed items are already removed.
+     * Items are moved in order of new list right after their predecessor in new list.
+     * Each item has two slots in ordered set of slots: slot before moving and slot after moving.
+     * Slots between items in place are ordered as already moved items in new order and then not yet moved items in old order
+     * so position of item is a count of occupied slots before its slot.
+     *
+     * @param updateCallback Callback to dispatch moves to;
+     * @param newPositions   New positions of old items;
+     * @param oldPositions   Old positions of new items;
+     * @param staysInPlace   Flags of old items which are not moved.
+     */
+    private static void dispatchMoves(@NonNull final ListUpdateCallback updateCallback,
+                                      @NonNull final int[] newPositions,
+                                      @NonNull final int[] oldPositions,
+                                      @NonNull final boolean[] staysInPlace) {
+        // gaps[g] is a space before g-th item in place (and the last one is after all of them)
+        final int[] oldGaps = new int[newPositions.length];
+        final int[] newGaps = new int[oldPositions.length];
+        int gapsCount = 1;
+        for (int oldPosition = 0; oldPosition < newPositions.length; oldPosition++) {
+            if (newPositions[oldPosition] != NO_POSITION) {
+                oldGaps[oldPosition] = gapsCount - 1;
+                if (staysInPlace[oldPosition]) {
+                    gapsCount++;
+                }
+            }
+        }
+        int gap = 0;
+        for (int newPosition = 0; newPosition < oldPositions.length; newPosition++) {
+            final int oldPosition = oldPositions[newPosition];
+            if (oldPosition != NO_POSITION) {
+                newGaps[newPosition] = gap;
+                if (staysInPlace[oldPosition]) {
+                    gap++;
+                }
+            }
+        }
+
+        final int[] gapStarts = new int[gapsCount + 1];
+        for (int oldPosition = 0; oldPosition < newPositions.length; oldPosition++) {
+            if (newPositions[oldPosition] != NO_POSITION) {
+                gapStarts[oldGaps[oldPosition] + 1]++;
+            }
+        }
+        for (int newPosition = 0; newPosition < oldPositions.length; newPosition++) {
+            final int oldPosition = oldPositions[newPosition];
+            if (oldPosition != NO_POSITION && !staysInPlace[oldPosition]) {
+                gapStarts[newGaps[newPosition] + 1]++;
+            }
+        }
+        for (int i = 1; i <= gapsCount; i++) {
+            gapStarts[i] += gapStarts[i - 1];
+        }
+        final int[] movedSlots = new int[oldPositions.length];
+        final int[] nextSlots = new int[gapsCount];
+        System.arraycopy(gapStarts, 0, nextSlots, 0, gapsCount);
+        for (int newPosition = 0; newPosition < oldPositions.length; newPosition++) {
+            final int oldPosition = oldPositions[newPosition];
+            if (oldPosition != NO_POSITION && !staysInPlace[oldPosition]) {
+                movedSlots[newPosition] = nextSlots[newGaps[newPosition]]++;
+            }
+        }
+        final SlotsCounter slots = new SlotsCounter(gapStarts[gapsCount]);
+        final int[] initialSlots = new int[newPositions.length];
+        for (int oldPosition = 0; oldPosition < newPositions.length; oldPosition++) {
+            if (newPositions[oldPosition] != NO_POSITION) {
+                initialSlots[oldPosition] = nextSlots[oldGaps[oldPosition]]++;
+                slots.add(initialSlots[oldPosition], 1);
+            }
+        }
+
+        for (int newPosition = 0; newPosition < oldPositions.length; newPosition++) {
+            final int oldPosition = oldPositions[newPosition];
+            if (oldPosition == NO_POSITION || staysInPlace[oldPosition]) {
+                continue;
+            }
+            final int fromPosition = slots.countBefore(initialSlots[oldPosition]);
+            slots.add(initialSlots[oldPosition], -1);
+            final int toPosition = slots.countBefore(movedSlots[newPosition]);
+            slots.add(movedSlots[newPosition], 1);
+            if (fromPosition != toPosition) {
+                updateCallback.onMoved(fromPosition, toPosition);
+            }
+        }
+    }
+
+    /**
+     * Fenwick tree to count occupied slots before some slot.
+     */
+    private static class SlotsCounter {
+
+        @NonNull
+        private final int[] tree;
+
+        public SlotsCounter(final int slotsCount) {
+            tree = new int[slotsCount + 1];
+        }
+
+        public void add(final int slot, final int delta) {
+            for (int i = slot + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        public int countBefore(final int slot) {
+            int result = 0;
+            for (int i = slot; i > 0; i -= i & -i) {
+                result += tree[i];
+            }
+            return result;
+        }
+
+    }
+
+}
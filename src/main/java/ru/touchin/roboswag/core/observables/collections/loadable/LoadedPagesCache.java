@@ -0,0 +1,90 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.loadable;
+
+import android.support.annotation.NonNull;
+
+import java.lang.reflect.Type;
+
+import ru.touchin.roboswag.core.log.Lc;
+import ru.touchin.roboswag.core.observables.storable.Store;
+import rx.Completable;
+import rx.Observable;
+import rx.functions.Func1;
+
+/**
+ * Cache of loaded parts of items of {@link LoadingMoreList} which is persisting them into {@link Store}.
+ * Parts are stored by keys created from {@link MoreLoadRequest} (from it's reference and position).
+ * Errors of store are just logged so cache is not breaking loading of items.
+ *
+ * @param <TKey>           Type of keys in store;
+ * @param <TMoreReference> Type of reference object to help rightly loading next block of items;
+ * @param <TLoadedItems>   Type of loading block of items.
+ */
+public class LoadedPagesCache<TKey, TMoreReference, TLoadedItems extends LoadedItems<?, TMoreReference>> {
+
+    @NonNull
+    private final Store<TKey, TLoadedItems> store;
+    @NonNull
+    private final Type loadedItemsType;
+    @NonNull
+    private final Func1<MoreLoadRequest<TMoreReference>, TKey> keyCreator;
+
+    public LoadedPagesCache(@NonNull final Store<TKey, TLoadedItems> store,
+                            @NonNull final Type loadedItemsType,
+                            @NonNull final Func1<MoreLoadRequest<TMoreReference>, TKey> keyCreator) {
+        this.store = store;
+        this.loadedItemsType = loadedItemsType;
+        this.keyCreator = keyCreator;
+    }
+
+    /**
+     * Returns {@link Observable} which emits cached part of items loaded by request or completes without emitting if there is no such part.
+     *
+     * @param moreLoadRequest Request of part of items;
+     * @return {@link Observable} of cached part of items.
+     */
+    @NonNull
+    public Observable<TLoadedItems> get(@NonNull final MoreLoadRequest<TMoreReference> moreLoadRequest) {
+        return store.loadObject(loadedItemsType, keyCreator.call(moreLoadRequest))
+                .toObservable()
+                .filter(optional -> optional.get() != null)
+                .map(optional -> optional.get())
+                .onErrorResumeNext(throwable -> {
+                    Lc.w(throwable, "Loading of cached items part failed");
+                    return Observable.empty();
+                });
+    }
+
+    /**
+     * Returns {@link Completable} which stores part of items loaded by request.
+     *
+     * @param moreLoadRequest Request of part of items;
+     * @param loadedItems     Loaded part of items;
+     * @return {@link Completable} of storing.
+     */
+    @NonNull
+    public Completable put(@NonNull final MoreLoadRequest<TMoreReference> moreLoadRequest, @NonNull final TLoadedItems loadedItems) {
+        return store.storeObject(loadedItemsType, keyCreator.call(moreLoadRequest), loadedItems)
+                .doOnError(throwable -> Lc.w(throwable, "Storing of loaded items part failed"))
+                .onErrorComplete();
+    }
+
+}
@@ -25,21 +25,33 @@ import android.support.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import ru.touchin.roboswag.core.android.support.v7.util.ListUpdateCallback;
 import ru.touchin.roboswag.core.log.Lc;
+import ru.touchin.roboswag.core.metrics.Metrics;
 import ru.touchin.roboswag.core.observables.collections.ObservableCollection;
 import ru.touchin.roboswag.core.observables.collections.ObservableList;
 import ru.touchin.roboswag.core.observables.collections.changes.Change;
 import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionsChangesCalculator;
+import ru.touchin.roboswag.core.observables.collections.changes.ItemKeyProvider;
 import ru.touchin.roboswag.core.utils.ShouldNotHappenException;
+import rx.Completable;
 import rx.Observable;
 import rx.Scheduler;
+import rx.Subscriber;
+import rx.Subscription;
 import rx.exceptions.OnErrorThrowable;
+import rx.functions.Actions;
 import rx.functions.Func0;
 import rx.functions.Func1;
+import rx.observers.Subscribers;
 import rx.schedulers.Schedulers;
 import rx.subjects.BehaviorSubject;
 
@@ -57,15 +69,28 @@ import rx.subjects.BehaviorSubject;
 public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedItems<TItem, TMoreReference>>
         extends ObservableCollection<TItem> {
 
+    /**
+     * Name of {@link Metrics} histogram of durations of loading pages by {@link MoreItemsLoader}.
+     */
+    public static final String PAGE_LOADING_METRIC_NAME = "loadingMoreList.pageLoading";
+
     private static final int RETRY_LOADING_AFTER_CHANGE_COUNT = 5;
+    // weight of last measurement in averaged scroll speed and page loading time
+    private static final float MEASUREMENTS_SMOOTHING = 0.3f;
+    // list is considered as not scrolling if visible position have not changed for that time
+    private static final long SCROLL_IDLE_TIME_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
 
     private static final LoadedItemsFilter<?> DUPLICATES_REMOVER = (collectionObject, loadedItemsObject) ->
             collectionObject.equals(loadedItemsObject) ? FilterAction.REMOVE_FROM_LOADED_ITEMS : FilterAction.DO_NOTHING;
+    // equal items have equal hash codes so duplicates could be found by item itself as a key
+    private static final ItemKeyProvider<?> ITEM_ITSELF_KEY_PROVIDER = item -> item;
 
     @NonNull
     private final Scheduler loaderScheduler = Schedulers.from(Executors.newSingleThreadExecutor());
     @NonNull
-    private Observable<TLoadedItems> loadingMoreObservable;
+    private final MoreItemsLoader<TItem, TMoreReference, TLoadedItems> moreItemsLoader;
+    @NonNull
+    private volatile Observable<TLoadedItems> loadingMoreObservable;
     @NonNull
     private final BehaviorSubject<Integer> moreItemsCount = BehaviorSubject.create(LoadedItems.UNKNOWN_ITEMS_COUNT);
     @NonNull
@@ -73,7 +98,33 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
     @Nullable
     private LoadedItemsFilter<TItem> loadedItemsFilter;
     @Nullable
+    private ItemKeyProvider<TItem> loadedItemsKeyProvider;
+    @Nullable
     private TMoreReference moreItemsReference;
+    // prefetch policy, subscription and scroll measurements are guarded by it
+    @NonNull
+    private final Object prefetchLock = new Object();
+    @Nullable
+    private PrefetchPolicy prefetchPolicy;
+    @Nullable
+    private Subscription prefetchSubscription;
+    private int lastVisiblePosition = -1;
+    private long lastVisiblePositionNanoTime;
+    private float scrollSpeed;
+    private volatile long loadingStartNanoTime;
+    private volatile long pageLoadingTimeMillis = PrefetchPolicy.UNKNOWN_LOADING_TIME;
+    // sorted by offset, guarded by itself
+    @NonNull
+    private final List<PageInfo<TMoreReference>> pages = new ArrayList<>();
+    @Nullable
+    private Func1<Integer, TItem> placeholderCreator;
+    private int windowDistance;
+    @Nullable
+    private LoadedPagesCache<?, TMoreReference, TLoadedItems> pagesCache;
+    // parts of items taken from cache which should be revalidated after insertion, guarded by itself;
+    // parts which are not inserted until end of loading are removed when loading observable terminates or unsubscribes
+    @NonNull
+    private final Map<Object, MoreLoadRequest<TMoreReference>> stalePages = new IdentityHashMap<>();
 
     public LoadingMoreList(@NonNull final MoreItemsLoader<TItem, TMoreReference, TLoadedItems> moreMoreItemsLoader) {
         this(moreMoreItemsLoader, null);
@@ -84,8 +135,18 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
     public LoadingMoreList(@NonNull final MoreItemsLoader<TItem, TMoreReference, TLoadedItems> moreMoreItemsLoader,
                            @Nullable final LoadedItems<TItem, TMoreReference> initialItems) {
         super();
-        this.loadingMoreObservable = Observable
-                .switchOnNext(Observable.fromCallable(() -> createLoadRequestBasedObservable(this::createActualRequest, moreMoreItemsLoader::load)))
+        this.moreItemsLoader = moreMoreItemsLoader;
+        this.loadingMoreObservable = createLoadingMoreObservable();
+
+        if (initialItems != null) {
+            innerOnItemsLoaded(initialItems, 0, false);
+        }
+    }
+
+    @NonNull
+    private Observable<TLoadedItems> createLoadingMoreObservable() {
+        return Observable
+                .switchOnNext(Observable.fromCallable(() -> createLoadRequestBasedObservable(this::createActualRequest, this::loadPage)))
                 .single()
                 .doOnError(throwable -> {
                     if (throwable instanceof IllegalArgumentException || throwable instanceof NoSuchElementException) {
@@ -93,12 +154,200 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
                                 + " MoreItemsLoader should emit only one result.", throwable));
                     }
                 })
-                .doOnNext(loadedItems -> onItemsLoaded(loadedItems, size(), false))
+                .doOnSubscribe(() -> loadingStartNanoTime = System.nanoTime())
+                .doOnNext(loadedItems -> {
+                    onPageLoadingTimeMeasured(System.nanoTime() - loadingStartNanoTime);
+                    onItemsLoaded(loadedItems, size(), false);
+                })
+                .doAfterTerminate(this::clearStalePages)
+                .doOnUnsubscribe(this::clearStalePages)
                 .replay(1)
                 .refCount();
+    }
 
-        if (initialItems != null) {
-            innerOnItemsLoaded(initialItems, 0, false);
+    @NonNull
+    private Observable<TLoadedItems> createConcurrentLoadingMoreObservable(final int pageSize, final int maxConcurrentPages) {
+        return Observable
+                .defer(() -> {
+                    final MoreLoadRequest<TMoreReference> firstRequest = createActualRequest();
+                    final ConcurrentLoadingState state = new ConcurrentLoadingState(firstRequest.getNextPosition(), size());
+                    return Observable.range(0, maxConcurrentPages)
+                            .concatMapEager(pageIndex -> {
+                                final int offset = firstRequest.getNextPosition() + pageIndex * pageSize;
+                                return loadPage(new MoreLoadRequest<>(firstRequest.getReference(), offset))
+                                        .subscribeOn(Schedulers.io())
+                                        .single()
+                                        .map(loadedItems -> new LoadedPage<>(offset, loadedItems));
+                            }, maxConcurrentPages, maxConcurrentPages)
+                            .observeOn(loaderScheduler)
+                            // pages after the end of items or after page that is shorter than expected
+                            // (or after list changes) are not valid anymore
+                            .takeWhile(loadedPage -> hasMoreItems()
+                                    && loadedPage.offset == state.nextOffset && size() == state.expectedSize)
+                            .map(loadedPage -> {
+                                onPageLoadingTimeMeasured(System.nanoTime() - loadingStartNanoTime);
+                                onItemsLoaded(loadedPage.loadedItems, size(), false);
+                                // offsets are advanced by count of loaded items as filter could remove some of them from list
+                                state.nextOffset += loadedPage.loadedItems.getItems().size();
+                                state.expectedSize = size();
+                                return loadedPage.loadedItems;
+                            });
+                })
+                .doOnSubscribe(() -> loadingStartNanoTime = System.nanoTime())
+                .doAfterTerminate(this::clearStalePages)
+                .doOnUnsubscribe(this::clearStalePages)
+                .replay(1)
+                .refCount();
+    }
+
+    /**
+     * Enables loading of several parts of items at the same time. Use it only for offset-based APIs
+     * as all requests are created with same reference and with offsets (see {@link MoreLoadRequest#getNextPosition()})
+     * of consecutive pages. Pages are inserted into the list strictly in order of offsets as soon as all previous pages are inserted.
+     * If some page is shorter than expected or has no more items after it then following pages are dropped.
+     * Following pages are also dropped if list is changed not by inserting of previous page.
+     * If {@link #setLoadedItemsFilter(LoadedItemsFilter)} is removing some loaded items then offsets of pages are still counted
+     * by all loaded items so eagerly loaded pages are kept but next pages after them are requested from current size of list
+     * and could contain already loaded items which should be removed by filter again (e.g. by {@link #setRemoveDuplicates(boolean)}).
+     *
+     * @param pageSize           Count of items that loader returns per request;
+     * @param maxConcurrentPages Max count of pages loading at the same time.
+     */
+    public void enableConcurrentLoading(final int pageSize, final int maxConcurrentPages) {
+        if (pageSize <= 0 || maxConcurrentPages <= 0) {
+            Lc.assertion("Illegal concurrent loading parameters: " + pageSize + ", " + maxConcurrentPages);
+            return;
+        }
+        synchronized (prefetchLock) {
+            cancelPrefetch();
+            loadingMoreObservable = createConcurrentLoadingMoreObservable(pageSize, maxConcurrentPages);
+        }
+    }
+
+    /**
+     * Disables loading of several parts of items at the same time.
+     */
+    public void disableConcurrentLoading() {
+        synchronized (prefetchLock) {
+            cancelPrefetch();
+            loadingMoreObservable = createLoadingMoreObservable();
+        }
+    }
+
+    /**
+     * Sets cache to persist loaded parts of items. Cached part is returned instantly instead of loading by {@link MoreItemsLoader}
+     * and then it is loaded again in background. Actual part is filtered by loaded items filter like newly loaded one
+     * and replaces cached one in the list: items are updated in place if count of items have not changed
+     * or cached items are removed and actual ones are inserted otherwise.
+     *
+     * @param pagesCache Cache of loaded parts of items or null to load items only by {@link MoreItemsLoader}.
+     */
+    public void setPagesCache(@Nullable final LoadedPagesCache<?, TMoreReference, TLoadedItems> pagesCache) {
+        this.pagesCache = pagesCache;
+    }
+
+    /**
+     * Sets source of diff utils parameters for calculation of changes when all loaded items are replaced
+     * (e.g. by {@link #reset(LoadedItems)}).
+     *
+     * @param diffUtilsSource Source of diff utils parameters.
+     */
+    public void setDiffUtilsSource(@Nullable final ObservableList<TItem> diffUtilsSource) {
+        innerList.setDiffUtilsSource(diffUtilsSource);
+    }
+
+    @NonNull
+    private Observable<TLoadedItems> loadPage(@NonNull final MoreLoadRequest<TMoreReference> moreLoadRequest) {
+        final LoadedPagesCache<?, TMoreReference, TLoadedItems> pagesCache = this.pagesCache;
+        if (pagesCache == null) {
+            return moreItemsLoader.load(moreLoadRequest);
+        }
+        return pagesCache.get(moreLoadRequest)
+                .doOnNext(cachedItems -> {
+                    synchronized (stalePages) {
+                        stalePages.put(cachedItems, moreLoadRequest);
+                    }
+                })
+                .switchIfEmpty(loadAndCachePage(pagesCache, moreLoadRequest));
+    }
+
+    @NonNull
+    private Observable<TLoadedItems> loadAndCachePage(@NonNull final LoadedPagesCache<?, TMoreReference, TLoadedItems> pagesCache,
+                                                      @NonNull final MoreLoadRequest<TMoreReference> moreLoadRequest) {
+        return moreItemsLoader.load(moreLoadRequest)
+                .flatMap(loadedItems -> pagesCache.put(moreLoadRequest, loadedItems).andThen(Observable.just(loadedItems)));
+    }
+
+    private void clearStalePages() {
+        synchronized (stalePages) {
+            stalePages.clear();
+        }
+    }
+
+    private void revalidateIfStale(@NonNull final LoadedItems<TItem, TMoreReference> loadedItems,
+                                   @Nullable final PageInfo<TMoreReference> page) {
+        final MoreLoadRequest<TMoreReference> moreLoadRequest;
+        synchronized (stalePages) {
+            moreLoadRequest = stalePages.remove(loadedItems);
+        }
+        final LoadedPagesCache<?, TMoreReference, TLoadedItems> pagesCache = this.pagesCache;
+        if (moreLoadRequest == null || pagesCache == null || page == null) {
+            return;
+        }
+        loadAndCachePage(pagesCache, moreLoadRequest)
+                .subscribeOn(Schedulers.io())
+                .single()
+                .observeOn(loaderScheduler)
+                .subscribe(actualItems -> onPageRevalidated(page, actualItems),
+                        throwable -> Lc.w(throwable, "Revalidation of cached items part failed"));
+    }
+
+    // called on loader scheduler
+    private void onPageRevalidated(@NonNull final PageInfo<TMoreReference> page, @NonNull final TLoadedItems actualItems) {
+        synchronized (pages) {
+            if (!pages.contains(page)) {
+                return;
+            }
+        }
+        final List<TItem> items = new ArrayList<>(actualItems.getItems());
+        // filtering against all items except stale ones which are going to be replaced
+        if (this.loadedItemsFilter != null && this.loadedItemsKeyProvider != null) {
+            filterListByKeys(items, this.loadedItemsFilter, this.loadedItemsKeyProvider, page);
+        } else if (this.loadedItemsFilter != null) {
+            filterList(items, this.loadedItemsFilter, page);
+        }
+        final int listSize = size();
+        final int offset;
+        final int oldSize;
+        synchronized (pages) {
+            final int index = pages.indexOf(page);
+            // list was reset or changed so stale items are not at that position anymore
+            if (index < 0 || page.offset + page.size > listSize) {
+                return;
+            }
+            offset = page.offset;
+            oldSize = page.size;
+            for (int i = index + 1; i < pages.size(); i++) {
+                pages.get(i).offset += items.size() - oldSize;
+            }
+            page.size = items.size();
+            page.evicted = false;
+        }
+        replaceRange(offset, oldSize, items);
+        if (offset + oldSize == listSize) {
+            moreItemsReference = actualItems.getReference();
+            moreItemsCount.onNext(actualItems.getMoreItemsCount());
+        }
+    }
+
+    // should be called under lock of pages
+    private void shiftPagesAfterRemoval(final int position) {
+        for (final PageInfo<TMoreReference> page : pages) {
+            if (position < page.offset) {
+                page.offset--;
+            } else if (position < page.offset + page.size) {
+                page.size--;
+            }
         }
     }
 
@@ -147,6 +396,21 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
         Lc.assertion("Illegal operation. Modify getInnerList()");
     }
 
+    @Override
+    protected void notifyAboutChanges(@NonNull final CollectionsChangesCalculator<TItem> calculator) {
+        Lc.assertion("Illegal operation. Modify getInnerList()");
+    }
+
+    @Override
+    public void addChangesCallback(@NonNull final ListUpdateCallback changesCallback) {
+        innerList.addChangesCallback(changesCallback);
+    }
+
+    @Override
+    public void removeChangesCallback(@NonNull final ListUpdateCallback changesCallback) {
+        innerList.removeChangesCallback(changesCallback);
+    }
+
     /**
      * Returns {@link ObservableList} of already loaded items so you can modify it.
      *
@@ -198,7 +462,11 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
             Lc.assertion("Remove old filter manually first");
             return;
         }
-        this.loadedItemsFilter = removeDuplicates ? (LoadedItemsFilter<TItem>) DUPLICATES_REMOVER : null;
+        if (removeDuplicates) {
+            setLoadedItemsFilter((LoadedItemsFilter<TItem>) DUPLICATES_REMOVER, (ItemKeyProvider<TItem>) ITEM_ITSELF_KEY_PROVIDER);
+        } else {
+            setLoadedItemsFilter(null);
+        }
     }
 
     /**
@@ -207,12 +475,34 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
      * @param loadedItemsFilter {@link LoadedItemsFilter} to make decision of removing items.
      */
     public void setLoadedItemsFilter(@Nullable final LoadedItemsFilter<TItem> loadedItemsFilter) {
+        setLoadedItemsFilter(loadedItemsFilter, null);
+    }
+
+    /**
+     * Sets specific filter object which will remove items from already loaded part or from new loaded items right after loading.
+     * If key provider is set then filter is called only for items with same keys, so it should return {@link FilterAction#DO_NOTHING}
+     * for items with different keys. Then already loaded items are found by index of keys and filtering of loaded page takes
+     * O(page size) time instead of O(page size * loaded items count).
+     *
+     * @param loadedItemsFilter      {@link LoadedItemsFilter} to make decision of removing items;
+     * @param loadedItemsKeyProvider Function that returns key of item or null to call filter for every pair of items.
+     */
+    public void setLoadedItemsFilter(@Nullable final LoadedItemsFilter<TItem> loadedItemsFilter,
+                                     @Nullable final ItemKeyProvider<TItem> loadedItemsKeyProvider) {
         this.loadedItemsFilter = loadedItemsFilter;
+        this.loadedItemsKeyProvider = loadedItemsFilter != null ? loadedItemsKeyProvider : null;
+        if (this.loadedItemsKeyProvider != null) {
+            innerList.enableItemsIndex(this.loadedItemsKeyProvider);
+        } else {
+            innerList.disableItemsIndex();
+        }
     }
 
     private void innerOnItemsLoaded(@NonNull final LoadedItems<TItem, TMoreReference> loadedItems, final int insertPosition, final boolean reset) {
+        final TMoreReference requestReference = reset ? null : moreItemsReference;
         final List<TItem> items = new ArrayList<>(loadedItems.getItems());
         final boolean lastPage = reset || insertPosition > size() - 1;
+        int actualInsertPosition = insertPosition;
         if (reset) {
             resetState();
             if (insertPosition != 0) {
@@ -220,15 +510,24 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
             }
             innerList.set(items);
         } else {
-            if (this.loadedItemsFilter != null) {
-                filterList(items, this.loadedItemsFilter);
+            final int sizeBeforeFiltering = size();
+            if (this.loadedItemsFilter != null && this.loadedItemsKeyProvider != null) {
+                filterListByKeys(items, this.loadedItemsFilter, this.loadedItemsKeyProvider, null);
+            } else if (this.loadedItemsFilter != null) {
+                filterList(items, this.loadedItemsFilter, null);
             }
-            innerList.addAll(insertPosition, items);
+            // items removed from collection by filter are shifting end of list
+            actualInsertPosition = insertPosition >= sizeBeforeFiltering ? size() : insertPosition;
+            innerList.addAll(actualInsertPosition, items);
         }
+        final PageInfo<TMoreReference> page = placeholderCreator != null || pagesCache != null
+                ? registerPage(actualInsertPosition, items.size(), requestReference)
+                : null;
         if (lastPage) {
             moreItemsReference = loadedItems.getReference();
             moreItemsCount.onNext(loadedItems.getMoreItemsCount());
         }
+        revalidateIfStale(loadedItems, page);
     }
 
     /**
@@ -242,26 +541,67 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
         innerOnItemsLoaded(loadedItems, insertPosition, reset);
     }
 
-    private void filterList(@NonNull final List<TItem> items, @NonNull final LoadedItemsFilter<TItem> loadedItemsFilter) {
-        for (int i = items.size() - 1; i >= 0; i--) {
-            for (int j = innerList.size() - 1; j >= 0; j--) {
-                final FilterAction filterAction = loadedItemsFilter.decideFilterAction(innerList.get(j), items.get(i));
-                if (filterAction == FilterAction.REMOVE_FROM_LOADED_ITEMS) {
-                    items.remove(i);
-                    break;
-                }
-                if (filterAction == FilterAction.REMOVE_FROM_COLLECTION) {
-                    innerList.remove(j);
+    private void filterList(@NonNull final List<TItem> items, @NonNull final LoadedItemsFilter<TItem> loadedItemsFilter,
+                            @Nullable final PageInfo<TMoreReference> skippedPage) {
+        synchronized (innerList) {
+            for (int i = items.size() - 1; i >= 0; i--) {
+                for (int j = innerList.size() - 1; j >= 0; j--) {
+                    if (!isInsidePage(skippedPage, j) && applyFilterAction(items, i, j, loadedItemsFilter)) {
+                        break;
+                    }
                 }
-                if (filterAction == FilterAction.REPLACE_SOURCE_ITEM_WITH_LOADED) {
-                    innerList.update(j, items.get(i));
-                    items.remove(i);
-                    break;
+            }
+        }
+    }
+
+    private void filterListByKeys(@NonNull final List<TItem> items,
+                                  @NonNull final LoadedItemsFilter<TItem> loadedItemsFilter,
+                                  @NonNull final ItemKeyProvider<TItem> loadedItemsKeyProvider,
+                                  @Nullable final PageInfo<TMoreReference> skippedPage) {
+        synchronized (innerList) {
+            for (int i = items.size() - 1; i >= 0; i--) {
+                final Object key = loadedItemsKeyProvider.getItemKey(items.get(i));
+                int j = innerList.lastIndexOfKey(key, Integer.MAX_VALUE);
+                while (j >= 0 && (isInsidePage(skippedPage, j) || !applyFilterAction(items, i, j, loadedItemsFilter))) {
+                    j = innerList.lastIndexOfKey(key, j - 1);
                 }
             }
         }
     }
 
+    // page is read under its lock as removals from collection by filter are shifting it
+    private boolean isInsidePage(@Nullable final PageInfo<TMoreReference> page, final int position) {
+        if (page == null) {
+            return false;
+        }
+        synchronized (pages) {
+            return position >= page.offset && position < page.offset + page.size;
+        }
+    }
+
+    // returns true if loaded item have been removed from loaded items
+    private boolean applyFilterAction(@NonNull final List<TItem> items, final int loadedItemPosition, final int collectionItemPosition,
+                                      @NonNull final LoadedItemsFilter<TItem> loadedItemsFilter) {
+        final FilterAction filterAction = loadedItemsFilter.decideFilterAction(innerList.get(collectionItemPosition),
+                items.get(loadedItemPosition));
+        if (filterAction == FilterAction.REMOVE_FROM_LOADED_ITEMS) {
+            items.remove(loadedItemPosition);
+            return true;
+        }
+        if (filterAction == FilterAction.REMOVE_FROM_COLLECTION) {
+            innerList.remove(collectionItemPosition);
+            synchronized (pages) {
+                shiftPagesAfterRemoval(collectionItemPosition);
+            }
+        }
+        if (filterAction == FilterAction.REPLACE_SOURCE_ITEM_WITH_LOADED) {
+            innerList.update(collectionItemPosition, items.get(loadedItemPosition));
+            items.remove(loadedItemPosition);
+            return true;
+        }
+        return false;
+    }
+
     @Override
     public int size() {
         return innerList.size();
@@ -302,11 +642,18 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
                 .switchOnNext(Observable
                         .fromCallable(() -> {
                             if (position < size()) {
-                                return Observable.just(get(position));
+                                final Observable<?> reloadingObservable = reloadPageIfEvicted(position);
+                                return reloadingObservable != null
+                                        ? reloadingObservable.switchMap(ignored -> Observable.<TItem>error(new NotLoadedYetException()))
+                                        : Observable.just(get(position));
                             } else if (moreItemsCount.getValue() == 0) {
                                 return Observable.just((TItem) null);
                             } else {
-                                return loadingMoreObservable.switchMap(ignored -> Observable.<TItem>error(new NotLoadedYetException()));
+                                // waiting for loaded part of items with such position (or end of loading) to check again
+                                return loadingMoreObservable
+                                        .takeFirst(ignored -> position < size())
+                                        .defaultIfEmpty(null)
+                                        .switchMap(ignored -> Observable.<TItem>error(new NotLoadedYetException()));
                             }
                         })
                         .subscribeOn(loaderScheduler))
@@ -333,6 +680,102 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
                 .map(Collections::unmodifiableCollection);
     }
 
+    private void onPageLoadingTimeMeasured(final long loadingTimeNanos) {
+        Metrics.recordNanos(PAGE_LOADING_METRIC_NAME, loadingTimeNanos);
+        final long loadingTimeMillis = TimeUnit.NANOSECONDS.toMillis(loadingTimeNanos);
+        final long averageLoadingTime = pageLoadingTimeMillis;
+        pageLoadingTimeMillis = averageLoadingTime == PrefetchPolicy.UNKNOWN_LOADING_TIME
+                ? loadingTimeMillis
+                : averageLoadingTime + (long) (MEASUREMENTS_SMOOTHING * (loadingTimeMillis - averageLoadingTime));
+    }
+
+    /**
+     * Returns average loading time of a part of items.
+     *
+     * @return Loading time in milliseconds or {@link PrefetchPolicy#UNKNOWN_LOADING_TIME} if nothing was loaded yet.
+     */
+    public long getPageLoadingTimeMillis() {
+        return pageLoadingTimeMillis;
+    }
+
+    /**
+     * Sets policy to start loading of next part of items before it is requested by {@link #loadItem(int)}.
+     * Policy is applied on each call of {@link #onLastVisiblePositionChanged(int)}.
+     *
+     * @param prefetchPolicy Policy to decide when to start loading or null to load items only on request.
+     */
+    public void setPrefetchPolicy(@Nullable final PrefetchPolicy prefetchPolicy) {
+        synchronized (prefetchLock) {
+            this.prefetchPolicy = prefetchPolicy;
+            if (prefetchPolicy == null) {
+                cancelPrefetch();
+            }
+        }
+    }
+
+    /**
+     * Should be called (usually from UI thread on scroll) when position of last visible item have changed.
+     * It is used to measure scroll speed and to start loading of next part of items in advance by {@link PrefetchPolicy}.
+     *
+     * @param lastVisiblePosition Position of last visible item.
+     */
+    public void onLastVisiblePositionChanged(final int lastVisiblePosition) {
+        final long nanoTime = System.nanoTime();
+        // size is taken before prefetch lock as inner list could call this method from callbacks while holding its own lock
+        final int itemsAfterVisibleCount = size() - 1 - lastVisiblePosition;
+        final Subscriber<TLoadedItems> prefetchSubscriber;
+        final Observable<TLoadedItems> prefetchObservable;
+        synchronized (prefetchLock) {
+            if (this.lastVisiblePosition >= 0) {
+                final long elapsedNanos = nanoTime - lastVisiblePositionNanoTime;
+                if (elapsedNanos >= SCROLL_IDLE_TIME_NANOS) {
+                    scrollSpeed = 0;
+                } else if (elapsedNanos > 0) {
+                    final float currentSpeed = (lastVisiblePosition - this.lastVisiblePosition)
+                            * (float) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+                    scrollSpeed += MEASUREMENTS_SMOOTHING * (currentSpeed - scrollSpeed);
+                }
+            }
+            this.lastVisiblePosition = lastVisiblePosition;
+            this.lastVisiblePositionNanoTime = nanoTime;
+            prefetchSubscriber = reservePrefetchIfNeeded(itemsAfterVisibleCount);
+            prefetchObservable = loadingMoreObservable;
+        }
+        if (prefetchSubscriber != null) {
+            // subscribing outside of lock as loading could start synchronously;
+            // if prefetch have been cancelled meanwhile then subscriber is already unsubscribed and nothing is loaded
+            prefetchObservable.subscribe(prefetchSubscriber);
+        }
+    }
+
+    // returns subscriber which is already stored as prefetch subscription or null if prefetch is not needed
+    @Nullable
+    private Subscriber<TLoadedItems> reservePrefetchIfNeeded(final int itemsAfterVisibleCount) {
+        if (prefetchPolicy == null || !hasMoreItems() || (prefetchSubscription != null && !prefetchSubscription.isUnsubscribed())) {
+            return null;
+        }
+        if (!prefetchPolicy.shouldPrefetch(itemsAfterVisibleCount, scrollSpeed, pageLoadingTimeMillis)) {
+            return null;
+        }
+        final Subscriber<TLoadedItems> prefetchSubscriber = Subscribers.create(Actions.empty(),
+                throwable -> Lc.w(throwable, "Prefetch failed"));
+        prefetchSubscription = prefetchSubscriber;
+        return prefetchSubscriber;
+    }
+
+    /**
+     * Cancels loading of next part of items started by {@link PrefetchPolicy}.
+     * Loading is not cancelled if someone else is waiting for it (e.g. by {@link #loadItem(int)}).
+     */
+    public void cancelPrefetch() {
+        synchronized (prefetchLock) {
+            if (prefetchSubscription != null) {
+                prefetchSubscription.unsubscribe();
+                prefetchSubscription = null;
+            }
+        }
+    }
+
     /**
      * Remove all loaded items and resets collection's state.
      */
@@ -353,6 +796,186 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
     protected void resetState() {
         moreItemsReference = null;
         moreItemsCount.onNext(LoadedItems.UNKNOWN_ITEMS_COUNT);
+        synchronized (pages) {
+            pages.clear();
+        }
+        synchronized (stalePages) {
+            stalePages.clear();
+        }
+    }
+
+    /**
+     * Enables windowed mode to not keep all loaded items in memory. Parts of items which are far from visible range
+     * (see {@link #onVisibleRangeChanged(int, int)}) are replaced with placeholders so positions of other items are not changed.
+     * Evicted parts are loaded again by {@link MoreItemsLoader} with same request on {@link #loadItem(int)} call.
+     * Use it only for APIs that are returning same items for same request and enable it before loading of items.
+     * Loaded items filter shouldn't remove items from collection in that mode.
+     *
+     * @param windowDistance     Count of items before and after visible range which are kept in memory;
+     * @param placeholderCreator Function that creates lightweight placeholder by its position
+     *                           (it could return same object for all positions).
+     */
+    public void enableWindowing(final int windowDistance, @NonNull final Func1<Integer, TItem> placeholderCreator) {
+        this.windowDistance = windowDistance;
+        this.placeholderCreator = placeholderCreator;
+    }
+
+    /**
+     * Disables windowed mode. Already evicted parts of items are still loaded again on {@link #loadItem(int)} call.
+     */
+    public void disableWindowing() {
+        this.placeholderCreator = null;
+    }
+
+    /**
+     * Returns if item at position is loaded and not replaced with placeholder in windowed mode.
+     *
+     * @param position Position of item;
+     * @return True if item is loaded.
+     */
+    public boolean isItemLoaded(final int position) {
+        if (position >= size()) {
+            return false;
+        }
+        synchronized (pages) {
+            final PageInfo<TMoreReference> page = findPage(position);
+            return page == null || !page.evicted;
+        }
+    }
+
+    /**
+     * Should be called (usually from UI thread on scroll) when visible range of items have changed.
+     * In windowed mode parts of items which are far from that range are replaced with placeholders.
+     * Replacing is done asynchronously on loader scheduler together with other changes of loaded items.
+     *
+     * @param firstVisiblePosition Position of first visible item;
+     * @param lastVisiblePosition  Position of last visible item.
+     */
+    public void onVisibleRangeChanged(final int firstVisiblePosition, final int lastVisiblePosition) {
+        onLastVisiblePositionChanged(lastVisiblePosition);
+        final Func1<Integer, TItem> placeholderCreator = this.placeholderCreator;
+        if (placeholderCreator == null) {
+            return;
+        }
+        Completable.fromAction(() -> evictPagesOutOfRange(firstVisiblePosition, lastVisiblePosition, placeholderCreator))
+                .subscribeOn(loaderScheduler)
+                .subscribe(Actions.empty(), Lc::assertion);
+    }
+
+    // should be called on loader scheduler so offsets of pages are not changing by loading until placeholders are set
+    private void evictPagesOutOfRange(final int firstVisiblePosition, final int lastVisiblePosition,
+                                      @NonNull final Func1<Integer, TItem> placeholderCreator) {
+        final List<PageInfo<TMoreReference>> evictedPages = new ArrayList<>();
+        synchronized (pages) {
+            for (final PageInfo<TMoreReference> page : pages) {
+                if (page.evicted || page.size == 0
+                        || (page.offset + page.size > firstVisiblePosition - windowDistance
+                        && page.offset <= lastVisiblePosition + windowDistance)) {
+                    continue;
+                }
+                page.evicted = true;
+                evictedPages.add(new PageInfo<>(page.reference, page.offset, page.size));
+            }
+        }
+        // inner list is changed out of lock of pages as it is notifying callbacks under own lock
+        // and callbacks could call isItemLoaded() from other thread
+        for (final PageInfo<TMoreReference> page : evictedPages) {
+            final List<TItem> placeholders = new ArrayList<>(page.size);
+            for (int position = page.offset; position < page.offset + page.size; position++) {
+                placeholders.add(placeholderCreator.call(position));
+            }
+            innerList.update(page.offset, placeholders);
+        }
+    }
+
+    @NonNull
+    private PageInfo<TMoreReference> registerPage(final int offset, final int size, @Nullable final TMoreReference reference) {
+        synchronized (pages) {
+            int index = pages.size();
+            while (index > 0 && pages.get(index - 1).offset >= offset) {
+                index--;
+                pages.get(index).offset += size;
+            }
+            final PageInfo<TMoreReference> page = new PageInfo<>(reference, offset, size);
+            pages.add(index, page);
+            return page;
+        }
+    }
+
+    // should be called under lock of pages
+    @Nullable
+    private PageInfo<TMoreReference> findPage(final int position) {
+        int low = 0;
+        int high = pages.size() - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final PageInfo<TMoreReference> page = pages.get(middle);
+            if (position < page.offset) {
+                high = middle - 1;
+            } else if (position >= page.offset + page.size) {
+                low = middle + 1;
+            } else {
+                return page;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private Observable<?> reloadPageIfEvicted(final int position) {
+        synchronized (pages) {
+            final PageInfo<TMoreReference> page = findPage(position);
+            if (page == null || !page.evicted) {
+                return null;
+            }
+            if (page.reloadingObservable == null) {
+                page.reloadingObservable = moreItemsLoader.load(new MoreLoadRequest<>(page.reference, page.offset))
+                        .subscribeOn(Schedulers.io())
+                        .single()
+                        .observeOn(loaderScheduler)
+                        .doOnNext(loadedItems -> onPageReloaded(page, loadedItems))
+                        .doOnTerminate(() -> {
+                            synchronized (pages) {
+                                page.reloadingObservable = null;
+                            }
+                        })
+                        .replay(1)
+                        .refCount();
+            }
+            return page.reloadingObservable;
+        }
+    }
+
+    // called on loader scheduler
+    private void onPageReloaded(@NonNull final PageInfo<TMoreReference> page, @NonNull final TLoadedItems loadedItems) {
+        final List<TItem> items = new ArrayList<>(loadedItems.getItems());
+        final int offset;
+        final int oldSize;
+        synchronized (pages) {
+            final int index = pages.indexOf(page);
+            if (index < 0 || !page.evicted) {
+                return;
+            }
+            offset = page.offset;
+            oldSize = page.size;
+            // source have changed so positions of next items are shifting
+            for (int i = index + 1; i < pages.size(); i++) {
+                pages.get(i).offset += items.size() - oldSize;
+            }
+            page.size = items.size();
+            page.evicted = false;
+        }
+        replaceRange(offset, oldSize, items);
+    }
+
+    // should be called on loader scheduler and out of lock of pages
+    private void replaceRange(final int offset, final int oldSize, @NonNull final List<TItem> items) {
+        if (items.size() == oldSize) {
+            innerList.update(offset, items);
+        } else {
+            innerList.remove(offset, oldSize);
+            innerList.addAll(offset, items);
+        }
     }
 
     /**
@@ -385,6 +1008,60 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
 
     }
 
+    /**
+     * Info about loaded part of items in windowed mode or with pages cache.
+     */
+    private static class PageInfo<TMoreReference> {
+
+        @Nullable
+        private final TMoreReference reference;
+        private int offset;
+        private int size;
+        private boolean evicted;
+        @Nullable
+        private Observable<?> reloadingObservable;
+
+        public PageInfo(@Nullable final TMoreReference reference, final int offset, final int size) {
+            this.reference = reference;
+            this.offset = offset;
+            this.size = size;
+        }
+
+    }
+
+    /**
+     * Loaded part of items with offset it was requested for.
+     */
+    private static class LoadedPage<TLoadedItems> {
+
+        private final int offset;
+        @NonNull
+        private final TLoadedItems loadedItems;
+
+        public LoadedPage(final int offset, @NonNull final TLoadedItems loadedItems) {
+            this.offset = offset;
+            this.loadedItems = loadedItems;
+        }
+
+    }
+
+    /**
+     * Progress of loading pages concurrently. It is accessed only on loader scheduler.
+     */
+    private static class ConcurrentLoadingState {
+
+        // offset of next page to insert counted by all loaded items including items removed by filter
+        private int nextOffset;
+        // size of list after inserting of previous page to detect other changes of list
+        private int expectedSize;
+
+        public ConcurrentLoadingState(final int nextOffset, final int expectedSize) {
+            this.nextOffset = nextOffset;
+            this.expectedSize = expectedSize;
+        }
+
+    }
+
     /**
      * Helper exception happens if {@link #loadItem(int)} called with big index and latest loading items part still not reached such item.
      */
@@ -0,0 +1,52 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.touchin.roboswag.core.observables.collections.loadable;
+
+/**
+ * {@link PrefetchPolicy} that starts loading when distance to the end of list is less than count of items
+ * which would be scrolled while next part of items is loading (plus some minimal distance).
+ */
+public class LookaheadPrefetchPolicy implements PrefetchPolicy {
+
+    private final int minDistance;
+    private final float latencyMultiplier;
+
+    /**
+     * Creates policy.
+     *
+     * @param minDistance       Distance to the end of list to start loading at even if list is not scrolling;
+     * @param latencyMultiplier Multiplier of loading time to have a margin if loading time is unstable. Usually 1.5-2.
+     */
+    public LookaheadPrefetchPolicy(final int minDistance, final float latencyMultiplier) {
+        this.minDistance = minDistance;
+        this.latencyMultiplier = latencyMultiplier;
+    }
+
+    @Override
+    public boolean shouldPrefetch(final int distanceToEnd, final float scrollSpeed, final long pageLoadingTimeMillis) {
+        if (distanceToEnd <= minDistance) {
+            return true;
+        }
+        if (scrollSpeed <= 0 || pageLoadingTimeMillis == UNKNOWN_LOADING_TIME) {
+            return false;
+        }
+        return distanceToEnd <= minDistance + scrollSpeed * pageLoadingTimeMillis * latencyMultiplier / 1000;
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.touchin.roboswag.core.observables.collections.loadable;
+
+/**
+ * Policy that decides when {@link LoadingMoreList} should start loading of next part of items before it is requested.
+ */
+public interface PrefetchPolicy {
+
+    /**
+     * Unknown loading time of a part of items (nothing was loaded yet).
+     */
+    long UNKNOWN_LOADING_TIME = -1;
+
+    /**
+     * Returns if loading of next part of items should start now.
+     *
+     * @param distanceToEnd         Count of loaded items after last visible item;
+     * @param scrollSpeed           Speed of scrolling towards the end of list in items per second (negative if scrolling backward);
+     * @param pageLoadingTimeMillis Average loading time of a part of items or {@link #UNKNOWN_LOADING_TIME};
+     * @return True if loading should start.
+     */
+    boolean shouldPrefetch(int distanceToEnd, float scrollSpeed, long pageLoadingTimeMillis);
+
+}
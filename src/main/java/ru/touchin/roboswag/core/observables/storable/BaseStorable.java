@@ -28,6 +28,8 @@ import java.util.concurrent.TimeUnit;
 
 import ru.touchin.roboswag.core.log.Lc;
 import ru.touchin.roboswag.core.log.LcGroup;
+import ru.touchin.roboswag.core.log.LcLevel;
+import ru.touchin.roboswag.core.metrics.Metrics;
 import ru.touchin.roboswag.core.observables.OnSubscribeRefCountWithCacheTime;
 import ru.touchin.roboswag.core.utils.ObjectUtils;
 import ru.touchin.roboswag.core.utils.Optional;
@@ -58,8 +60,38 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
 
     public static final LcGroup STORABLE_LC_GROUP = new LcGroup("STORABLE");
 
+    /**
+     * Name of {@link Metrics} histogram of durations of loading values from stores.
+     */
+    public static final String LOAD_METRIC_NAME = "storable.load";
+    /**
+     * Name of {@link Metrics} histogram of durations of conversions of values.
+     */
+    public static final String CONVERT_METRIC_NAME = "storable.convert";
+    /**
+     * Name of {@link Metrics} histogram of durations of storing values to stores.
+     */
+    public static final String STORE_METRIC_NAME = "storable.store";
+    /**
+     * Name of {@link Metrics} histogram of durations of migrations of values.
+     */
+    public static final String MIGRATE_METRIC_NAME = "storable.migrate";
+
     private static final long DEFAULT_CACHE_TIME_MILLIS = TimeUnit.SECONDS.toMillis(5);
 
+    private static volatile boolean perKeyMetricsEnabled;
+
+    /**
+     * Sets if durations of operations should be recorded into separate {@link Metrics} histograms per key of storable
+     * (e.g. "storable.load.&lt;key&gt;") instead of common ones (e.g. {@link #LOAD_METRIC_NAME}).
+     * Each histogram takes several kilobytes of memory so enable it only if count of keys is limited (e.g. not for dynamic keys).
+     *
+     * @param perKeyMetricsEnabled True to record durations per key.
+     */
+    public static void setPerKeyMetricsEnabled(final boolean perKeyMetricsEnabled) {
+        BaseStorable.perKeyMetricsEnabled = perKeyMetricsEnabled;
+    }
+
     @NonNull
     private static ObserveStrategy getDefaultObserveStrategyFor(@NonNull final Type objectType, @NonNull final Type storeObjectType) {
         if (objectType instanceof Class && ObjectUtils.isSimpleClass((Class) objectType)) {
@@ -89,6 +121,15 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
     private final Observable<Optional<TObject>> valueObservable;
     @NonNull
     private final Scheduler scheduler;
+    // names of per key histograms are built once per storable
+    @NonNull
+    private final String loadPerKeyMetricName;
+    @NonNull
+    private final String convertPerKeyMetricName;
+    @NonNull
+    private final String storePerKeyMetricName;
+    @NonNull
+    private final String migratePerKeyMetricName;
 
     public BaseStorable(@NonNull final BuilderCore<TKey, TObject, TStoreObject> builderCore) {
         this(builderCore.key, builderCore.objectType, builderCore.storeObjectType,
@@ -113,6 +154,10 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
         this.storeObjectType = storeObjectType;
         this.store = store;
         this.converter = converter;
+        loadPerKeyMetricName = LOAD_METRIC_NAME + '.' + key;
+        convertPerKeyMetricName = CONVERT_METRIC_NAME + '.' + key;
+        storePerKeyMetricName = STORE_METRIC_NAME + '.' + key;
+        migratePerKeyMetricName = MIGRATE_METRIC_NAME + '.' + key;
 
         final ObserveStrategy nonNullObserveStrategy
                 = observeStrategy != null ? observeStrategy : getDefaultObserveStrategyFor(objectType, storeObjectType);
@@ -129,7 +174,7 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
         }
 
         try {
-            return new Optional<>(converter.toStoreObject(objectType, storeObjectType, defaultValue));
+            return new Optional<>(convertToStoreObject(defaultValue));
         } catch (final Converter.ConversionException exception) {
             STORABLE_LC_GROUP.w(exception, "Exception while converting default value of '%s' from '%s' from store %s",
                     key, defaultValue, store);
@@ -137,11 +182,37 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
         }
     }
 
+    private void recordTiming(@NonNull final String metricName, @NonNull final String perKeyMetricName, final long startNanoTime) {
+        if (startNanoTime != Metrics.NOT_TIMED) {
+            Metrics.recordTiming(perKeyMetricsEnabled ? perKeyMetricName : metricName, startNanoTime);
+        }
+    }
+
+    @Nullable
+    private TStoreObject convertToStoreObject(@Nullable final TObject object) throws Converter.ConversionException {
+        final long startNanoTime = Metrics.startTiming();
+        final TStoreObject result = converter.toStoreObject(objectType, storeObjectType, object);
+        recordTiming(CONVERT_METRIC_NAME, convertPerKeyMetricName, startNanoTime);
+        return result;
+    }
+
+    @Nullable
+    private TObject convertToObject(@Nullable final TStoreObject storeObject) throws Converter.ConversionException {
+        final long startNanoTime = Metrics.startTiming();
+        final TObject result = converter.toObject(objectType, storeObjectType, storeObject);
+        recordTiming(CONVERT_METRIC_NAME, convertPerKeyMetricName, startNanoTime);
+        return result;
+    }
+
     @NonNull
     private Observable<Optional<TStoreObject>> createStoreInitialLoadingObservable(@Nullable final Migration<TKey> migration) {
-        final Single<Optional<TStoreObject>> loadObservable = store.loadObject(storeObjectType, key)
+        final Single<Optional<TStoreObject>> loadObservable = Single.defer(() -> {
+            final long startNanoTime = Metrics.startTiming();
+            return store.loadObject(storeObjectType, key)
+                    .doOnSuccess(ignored -> recordTiming(LOAD_METRIC_NAME, loadPerKeyMetricName, startNanoTime));
+        })
                 .doOnError(throwable -> STORABLE_LC_GROUP.w(throwable, "Exception while trying to load value of '%s' from store %s", key, store));
-        return (migration != null ? migration.migrateToLatestVersion(key).andThen(loadObservable) : loadObservable)
+        return (migration != null ? createMigrationCompletable(migration).andThen(loadObservable) : loadObservable)
                 .subscribeOn(scheduler)
                 .observeOn(scheduler)
                 .toObservable()
@@ -150,6 +221,15 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
                 .take(1);
     }
 
+    @NonNull
+    private Completable createMigrationCompletable(@NonNull final Migration<TKey> migration) {
+        return Completable.defer(() -> {
+            final long startNanoTime = Metrics.startTiming();
+            return migration.migrateToLatestVersion(key)
+                    .doOnCompleted(() -> recordTiming(MIGRATE_METRIC_NAME, migratePerKeyMetricName, startNanoTime));
+        });
+    }
+
     @NonNull
     private Observable<Optional<TStoreObject>> createStoreValueObservable(@NonNull final ObserveStrategy observeStrategy,
                                                                           @Nullable final Migration<TKey> migration,
@@ -171,7 +251,7 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
         final Observable<Optional<TObject>> result = storeValueObservable
                 .map(storeObject -> {
                     try {
-                        return new Optional<>(converter.toObject(objectType, storeObjectType, storeObject.get()));
+                        return new Optional<>(convertToObject(storeObject.get()));
                     } catch (final Converter.ConversionException exception) {
                         STORABLE_LC_GROUP.w(exception, "Exception while trying to converting value of '%s' from store %s by %s",
                                 key, storeObject, store, converter);
@@ -240,26 +320,34 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
                 .flatMapCompletable(oldStoreValue -> {
                     final TStoreObject newStoreValue;
                     try {
-                        newStoreValue = converter.toStoreObject(objectType, storeObjectType, newValue);
+                        newStoreValue = convertToStoreObject(newValue);
                     } catch (final Converter.ConversionException exception) {
-                        STORABLE_LC_GROUP.w(exception, "Exception while trying to store value of '%s' from store %s by %s",
-                                key, newValue, store, converter);
+                        if (STORABLE_LC_GROUP.isLoggable(LcLevel.WARN)) {
+                            STORABLE_LC_GROUP.logFields(LcLevel.WARN, exception, "Exception while trying to convert value to store",
+                                    "key", key, "value", newValue, "store", store, "converter", converter);
+                        }
                         return Completable.error(exception);
                     }
                     if (checkForEqualityBeforeSet && ObjectUtils.equals(newStoreValue, oldStoreValue.get())) {
                         return Completable.complete();
                     }
+                    final long startNanoTime = Metrics.startTiming();
                     return store.storeObject(storeObjectType, key, newStoreValue)
-                            .doOnError(throwable -> STORABLE_LC_GROUP.w(throwable,
-                                    "Exception while trying to store value of '%s' from store %s by %s",
-                                    key, newValue, store, converter))
+                            .doOnCompleted(() -> recordTiming(STORE_METRIC_NAME, storePerKeyMetricName, startNanoTime))
+                            .doOnError(throwable -> {
+                                if (STORABLE_LC_GROUP.isLoggable(LcLevel.WARN)) {
+                                    STORABLE_LC_GROUP.logFields(LcLevel.WARN, throwable, "Exception while trying to store value",
+                                            "key", key, "value", newValue, "store", store, "converter", converter);
+                                }
+                            })
                             .observeOn(scheduler)
                             .andThen(Completable.fromAction(() -> {
                                 newStoreValueEvent.onNext(new Optional<>(newStoreValue));
                                 if (checkForEqualityBeforeSet) {
-                                    STORABLE_LC_GROUP.i("Value of '%s' changed from '%s' to '%s'", key, oldStoreValue, newStoreValue);
+                                    STORABLE_LC_GROUP.logFields(LcLevel.INFO, "Value changed",
+                                            "key", key, "oldValue", oldStoreValue.get(), "newValue", newStoreValue);
                                 } else {
-                                    STORABLE_LC_GROUP.i("Value of '%s' force changed to '%s'", key, newStoreValue);
+                                    STORABLE_LC_GROUP.logFields(LcLevel.INFO, "Value force changed", "key", key, "newValue", newStoreValue);
                                 }
                             }));
                 });
@@ -0,0 +1,56 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.utils;
+
+import android.support.annotation.NonNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Codec to write objects in compact binary form and read them back instead of Java serialization of whole objects.
+ * Codec is serialized together with objects it writes so it should be stateless (e.g. enum or class without fields).
+ *
+ * @param <T> Type of objects.
+ */
+public interface BinaryCodec<T> extends Serializable {
+
+    /**
+     * Writes object.
+     *
+     * @param object Object to write;
+     * @param output Output to write object into;
+     * @throws IOException Exception during writing.
+     */
+    void write(@NonNull T object, @NonNull DataOutput output) throws IOException;
+
+    /**
+     * Reads object.
+     *
+     * @param input Input to read object from;
+     * @return Read object;
+     * @throws IOException Exception during reading.
+     */
+    @NonNull
+    T read(@NonNull DataInput input) throws IOException;
+
+}
@@ -0,0 +1,125 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.utils;
+
+import android.support.annotation.NonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Utility class to write and read objects by {@link BinaryCodec} as length-prefixed records.
+ * Length prefix allows to check that codec have read exactly same bytes as were written.
+ */
+public final class SerializationUtils {
+
+    // counts and lengths are read from possibly corrupted state so memory is allocated only for data which actually exists in stream
+    private static final int MAX_PREALLOCATED_RECORDS_COUNT = 1024;
+    private static final int MAX_PREALLOCATED_RECORD_LENGTH = 64 * 1024;
+
+    /**
+     * Writes collection of objects as count of records and then records themselves.
+     *
+     * @param outputStream Stream to write into;
+     * @param codec        Codec of objects;
+     * @param objects      Objects to write;
+     * @param <T>          Type of objects;
+     * @throws IOException Exception during writing.
+     */
+    public static <T> void writeRecords(@NonNull final ObjectOutputStream outputStream,
+                                        @NonNull final BinaryCodec<T> codec,
+                                        @NonNull final Collection<T> objects) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final DataOutputStream bufferOutput = new DataOutputStream(buffer);
+        outputStream.writeInt(objects.size());
+        for (final T object : objects) {
+            buffer.reset();
+            codec.write(object, bufferOutput);
+            bufferOutput.flush();
+            outputStream.writeInt(buffer.size());
+            buffer.writeTo(outputStream);
+        }
+    }
+
+    /**
+     * Reads collection of objects written by {@link #writeRecords(ObjectOutputStream, BinaryCodec, Collection)}.
+     *
+     * @param inputStream Stream to read from;
+     * @param codec       Codec of objects;
+     * @param <T>         Type of objects;
+     * @return Read objects;
+     * @throws IOException Exception during reading.
+     */
+    @NonNull
+    public static <T> List<T> readRecords(@NonNull final ObjectInputStream inputStream,
+                                          @NonNull final BinaryCodec<T> codec) throws IOException {
+        final int count = inputStream.readInt();
+        if (count < 0) {
+            throw new InvalidObjectException("Illegal records count " + count);
+        }
+        final List<T> result = new ArrayList<>(Math.min(count, MAX_PREALLOCATED_RECORDS_COUNT));
+        byte[] recordBytes = new byte[0];
+        for (int i = 0; i < count; i++) {
+            final int length = inputStream.readInt();
+            if (length < 0) {
+                throw new InvalidObjectException("Illegal record length " + length);
+            }
+            recordBytes = readRecordBytes(inputStream, recordBytes, length);
+            final ByteArrayInputStream recordStream = new ByteArrayInputStream(recordBytes, 0, length);
+            result.add(codec.read(new DataInputStream(recordStream)));
+            if (recordStream.available() > 0) {
+                throw new InvalidObjectException("Codec " + codec + " have not read whole record");
+            }
+        }
+        return result;
+    }
+
+    @NonNull
+    private static byte[] readRecordBytes(@NonNull final ObjectInputStream inputStream, @NonNull final byte[] buffer, final int length)
+            throws IOException {
+        byte[] result = buffer;
+        int readLength = 0;
+        while (readLength < length) {
+            if (result.length == readLength) {
+                final int newSize = readLength + Math.max(readLength, Math.min(length - readLength, MAX_PREALLOCATED_RECORD_LENGTH));
+                final byte[] newResult = new byte[Math.min(newSize, length)];
+                System.arraycopy(result, 0, newResult, 0, readLength);
+                result = newResult;
+            }
+            final int chunkLength = Math.min(result.length, length) - readLength;
+            inputStream.readFully(result, readLength, chunkLength);
+            readLength += chunkLength;
+        }
+        return result;
+    }
+
+    private SerializationUtils() {
+    }
+
+}